@@ -0,0 +1,61 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.util.JsonCodec;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of archive REST responses as received, in a Vert.x Buffer: through an
+ * intermediate String (<code>string*</code>, as the client used to) and straight from the bytes
+ * (<code>buffer*</code>).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveDecodingBenchmark {
+
+    @Param({"1", "1000"})
+    public int pageSize;
+
+    private Buffer archive;
+    private Buffer archiveList;
+
+    @Setup
+    public void setup() {
+        archive = Buffer.buffer(BenchmarkData.archiveJson(0));
+        archiveList = Buffer.buffer(BenchmarkData.archiveListJson(pageSize));
+    }
+
+    @Benchmark
+    public Archive stringArchive() throws IOException {
+        return JsonCodec.ARCHIVE_READER.readValue(archive.toString());
+    }
+
+    @Benchmark
+    public Archive bufferArchive() throws IOException {
+        return JsonCodec.read(JsonCodec.ARCHIVE_READER, archive);
+    }
+
+    @Benchmark
+    public ArchiveList stringArchiveList() throws IOException {
+        return JsonCodec.ARCHIVE_LIST_READER.readValue(archiveList.toString());
+    }
+
+    @Benchmark
+    public ArchiveList bufferArchiveList() throws IOException {
+        return JsonCodec.read(JsonCodec.ARCHIVE_LIST_READER, archiveList);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.exception.OpenTokException;
+import com.opentok.util.JwtSigner;
+import com.opentok.util.TokenGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures signing of the JWT sent with every REST request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthTokenBenchmark {
+
+    @Param({"JOSE4J", "HS256"})
+    public JwtSigner.Type signerType;
+
+    private JwtSigner signer;
+
+    @Setup
+    public void setup() {
+        signer = JwtSigner.create(signerType, BenchmarkData.API_KEY, BenchmarkData.API_SECRET);
+    }
+
+    @Benchmark
+    public String tokenGenerator() throws OpenTokException {
+        return TokenGenerator.generateToken(BenchmarkData.API_KEY, BenchmarkData.API_SECRET);
+    }
+
+    @Benchmark
+    public String jwtSigner() throws OpenTokException {
+        long now = System.currentTimeMillis() / 1000L;
+        return signer.sign(now, now + TokenGenerator.DEFAULT_LIFETIME_SECONDS);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Credentials and payloads shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final int API_KEY = 123456;
+    static final String API_SECRET = "1234567890abcdef1234567890abcdef12345678";
+    static final String SESSION_ID = sessionId(API_KEY);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds a session ID with the same layout as the ones returned by the OpenTok API.
+     */
+    static String sessionId(int apiKey) {
+        String decoded = "1~" + apiKey + "~12.34.56.78~1458087420925~kxNJ6ZYxkPATE0MEtITaWdLm~";
+        return "1_" + Base64.getEncoder().encodeToString(decoded.getBytes(StandardCharsets.UTF_8))
+                .replace('+', '-').replace('/', '_');
+    }
+
+    /**
+     * Builds an archive list response body with <code>count</code> items.
+     */
+    static String archiveListJson(int count) {
+        StringBuilder json = new StringBuilder("{\"count\":").append(count * 3).append(",\"items\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(archiveJson(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    static String archiveJson(int i) {
+        return "{\"createdAt\":" + (1395183243000L - i * 60000L) + "," +
+                "\"duration\":" + (60 + i) + "," +
+                "\"id\":\"" + String.format("%08x-5fd8-4a51-b6d3-6d93b8f54a7b", i) + "\"," +
+                "\"name\":\"Archive " + i + "\"," +
+                "\"partnerId\":" + API_KEY + "," +
+                "\"reason\":\"\"," +
+                "\"sessionId\":\"" + SESSION_ID + "\"," +
+                "\"size\":" + (8347554 + i) + "," +
+                "\"status\":\"available\"," +
+                "\"hasAudio\":true," +
+                "\"hasVideo\":true," +
+                "\"outputMode\":\"composed\"," +
+                "\"url\":\"https://tokbox.com.archive2.s3.amazonaws.com/" + API_KEY + "/archive-" + i + "/archive.mp4\"}";
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.util.Crypto;
+import com.opentok.util.SessionId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link Crypto} helpers and the {@link SessionId} decoder used when generating tokens.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CryptoBenchmark {
+
+    private String data;
+
+    @Setup
+    public void setup() {
+        long now = System.currentTimeMillis() / 1000L;
+        data = "session_id=" + BenchmarkData.SESSION_ID + "&create_time=" + now + "&nonce=-1829103423" +
+                "&role=publisher&expire_time=" + (now + 86400) + "&connection_data=name%3DJohnny";
+    }
+
+    @Benchmark
+    public String signData() throws Exception {
+        return Crypto.signData(data, BenchmarkData.API_SECRET);
+    }
+
+    @Benchmark
+    public List<String> decodeSessionId() throws Exception {
+        return Crypto.decodeSessionId(BenchmarkData.SESSION_ID);
+    }
+
+    @Benchmark
+    public SessionId parseSessionId() throws Exception {
+        return SessionId.parse(BenchmarkData.SESSION_ID);
+    }
+}
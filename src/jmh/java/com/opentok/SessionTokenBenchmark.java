@@ -0,0 +1,72 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.exception.OpenTokException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Session#generateToken(TokenOptions)} and {@link Session#generateToken(TokenTemplate)} for the
+ * common shapes of TokenOptions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionTokenBenchmark {
+
+    @Param({"default", "subscriber", "data", "layout", "full"})
+    public String options;
+
+    private Session session;
+    private TokenOptions tokenOptions;
+    private TokenTemplate tokenTemplate;
+
+    @Setup
+    public void setup() throws OpenTokException {
+        session = new Session(BenchmarkData.SESSION_ID, BenchmarkData.API_KEY, BenchmarkData.API_SECRET);
+        long expireTime = System.currentTimeMillis() / 1000L + 7 * 24 * 60 * 60;
+        switch (options) {
+            case "subscriber":
+                tokenOptions = new TokenOptions.Builder().role(Role.SUBSCRIBER).build();
+                break;
+            case "data":
+                tokenOptions = new TokenOptions.Builder().data("name=Johnny&userLevel=4 \u00e9").build();
+                break;
+            case "layout":
+                tokenOptions = new TokenOptions.Builder().initialLayoutClassList(Arrays.asList("focus", "full")).build();
+                break;
+            case "full":
+                tokenOptions = new TokenOptions.Builder()
+                        .role(Role.MODERATOR)
+                        .expireTime(expireTime)
+                        .data("{\"userId\":\"7f3c2b1a\",\"name\":\"Johnny Appleseed\",\"level\":4}")
+                        .initialLayoutClassList(Arrays.asList("focus", "full", "speaker"))
+                        .build();
+                break;
+            default:
+                tokenOptions = new TokenOptions.Builder().build();
+        }
+        tokenTemplate = TokenTemplate.compile(tokenOptions);
+    }
+
+    @Benchmark
+    public String generateToken() throws OpenTokException {
+        return session.generateToken(tokenOptions);
+    }
+
+    @Benchmark
+    public String generateTokenFromTemplate() throws OpenTokException {
+        return session.generateToken(tokenTemplate);
+    }
+}
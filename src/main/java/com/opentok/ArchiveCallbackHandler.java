@@ -0,0 +1,194 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.util.ArchiveCodec;
+import com.opentok.util.JsonCodec;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Receives the archive status callbacks OpenTok sends to the callback URL of a project, as a Vert.x
+ * {@link HttpServerRequest} handler:
+ *
+ * <pre>
+ * vertx.createHttpServer()
+ *     .requestHandler(new ArchiveCallbackHandler.Builder(vertx, apiKey).address("archives").build())
+ *     .listen(8080);
+ * </pre>
+ *
+ * Each callback body is decoded into an {@link Archive} straight from the bytes it was received in.
+ * Callbacks that are not valid JSON, that miss the archive ID, session ID or status, or that are for
+ * another project are answered with a 400 status and dropped.
+ * <p>
+ * Valid callbacks are answered with a 200 status. The archive is published on the event bus address,
+ * if one is set, and passed to the registered handlers, unless it repeats the last status received
+ * for the archive, as it does when OpenTok sends a callback again. Archives are published with
+ * {@link ArchiveCodec}, so local consumers receive the decoded object itself.
+ * <p>
+ * This class is thread-safe; one instance can serve several event loops.
+ */
+public class ArchiveCallbackHandler implements Handler<HttpServerRequest> {
+
+    private final int apiKey;
+    private final EventBus eventBus;
+    private final String address;
+    private final DeliveryOptions deliveryOptions = new DeliveryOptions().setCodecName(ArchiveCodec.NAME);
+    private final int maxBodySize;
+    private final List<Handler<Archive>> handlers = new CopyOnWriteArrayList<>();
+    private final Map<String, Archive.Status> lastStatuses;
+
+    private ArchiveCallbackHandler(Builder builder) {
+        this.apiKey = builder.apiKey;
+        this.eventBus = builder.vertx.eventBus();
+        this.address = builder.address;
+        this.maxBodySize = builder.maxBodySize;
+        int trackedArchives = builder.trackedArchives;
+        this.lastStatuses = new LinkedHashMap<String, Archive.Status>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Archive.Status> eldest) {
+                return size() > trackedArchives;
+            }
+        };
+        if (address != null) {
+            ArchiveCodec.register(eventBus);
+        }
+    }
+
+    /**
+     * Use this class to create an ArchiveCallbackHandler object.
+     */
+    public static class Builder {
+        private final Vertx vertx;
+        private final int apiKey;
+        private String address;
+        private int maxBodySize = 64 * 1024;
+        private int trackedArchives = 10000;
+
+        /**
+         * @param apiKey The API key of the project; callbacks for other projects are rejected.
+         */
+        public Builder(Vertx vertx, int apiKey) {
+            this.vertx = vertx;
+            this.apiKey = apiKey;
+        }
+
+        /**
+         * The event bus address archives are published on. By default, archives are only passed to the
+         * registered handlers.
+         */
+        public Builder address(String address) {
+            this.address = address;
+            return this;
+        }
+
+        /**
+         * The largest callback body, in bytes, that is read. Larger callbacks are answered with a 413
+         * status. Defaults to 64 KiB.
+         */
+        public Builder maxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * The number of archives whose last status is kept to drop repeated callbacks. Defaults to 10000.
+         */
+        public Builder trackedArchives(int trackedArchives) {
+            if (trackedArchives < 1) {
+                throw new IllegalArgumentException("At least one archive must be tracked. trackedArchives: " +
+                        trackedArchives);
+            }
+            this.trackedArchives = trackedArchives;
+            return this;
+        }
+
+        /**
+         * Builds the ArchiveCallbackHandler object.
+         */
+        public ArchiveCallbackHandler build() {
+            return new ArchiveCallbackHandler(this);
+        }
+    }
+
+    /**
+     * Registers a handler called with each archive status change.
+     */
+    public ArchiveCallbackHandler handler(Handler<Archive> handler) {
+        handlers.add(handler);
+        return this;
+    }
+
+    @Override
+    public void handle(HttpServerRequest request) {
+        if (request.method() != HttpMethod.POST) {
+            request.response().setStatusCode(405).end();
+            return;
+        }
+        if (CallbackBody.declaredLength(request) > maxBodySize) {
+            request.response().setStatusCode(413).setStatusMessage("Payload Too Large").end();
+            return;
+        }
+
+        CallbackBody body = new CallbackBody(maxBodySize);
+        request.handler(body::append);
+        request.endHandler(v -> {
+            if (body.isTooLarge()) {
+                request.response().setStatusCode(413).setStatusMessage("Payload Too Large").end();
+                return;
+            }
+            Archive archive = decode(body.get());
+            if (archive == null) {
+                request.response().setStatusCode(400).end();
+                return;
+            }
+            request.response().end();
+            if (isStatusChange(archive)) {
+                if (address != null) {
+                    eventBus.publish(address, archive, deliveryOptions);
+                }
+                for (Handler<Archive> handler : handlers) {
+                    handler.handle(archive);
+                }
+            }
+        });
+    }
+
+    private Archive decode(Buffer body) {
+        if (body == null) {
+            return null;
+        }
+        Archive archive;
+        try {
+            archive = JsonCodec.read(JsonCodec.ARCHIVE_READER, body);
+        } catch (Exception e) {
+            return null;
+        }
+        if (archive == null || archive.getId() == null || archive.getSessionId() == null ||
+                archive.getStatus() == null || archive.getPartnerId() != apiKey) {
+            return null;
+        }
+        return archive;
+    }
+
+    private boolean isStatusChange(Archive archive) {
+        synchronized (lastStatuses) {
+            return lastStatuses.put(archive.getId(), archive.getStatus()) != archive.getStatus();
+        }
+    }
+}
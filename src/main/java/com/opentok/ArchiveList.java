@@ -20,6 +20,20 @@ public class ArchiveList extends ArrayList<Archive> {
 
     private int totalCount;
 
+    public ArchiveList() {
+    }
+
+    /**
+     * Creates a list of archives.
+     *
+     * @param archives The archives of the list.
+     * @param totalCount The total number of archives the list is part of.
+     */
+    public ArchiveList(List<Archive> archives, int totalCount) {
+        super(archives);
+        this.totalCount = totalCount;
+    }
+
     /**
      * The total number of Archives for the API Key.
      */
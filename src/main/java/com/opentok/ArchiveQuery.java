@@ -0,0 +1,187 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.Archive.OutputMode;
+import com.opentok.Archive.Status;
+import io.vertx.core.Handler;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Selects archives for the {@link OpenTok#queryArchives(ArchiveQuery, Handler)} method.
+ * <p>
+ * The archive list is ordered by creation time, most recent first, so a query with a
+ * {@link Builder#createdAfter(long) lower bound} on the creation time stops reading pages at the first
+ * archive created before it, and a query with a {@link Builder#limit(int) limit} stops once it has
+ * found that many archives.
+ *
+ * @see OpenTok#queryArchives(ArchiveQuery, Handler)
+ */
+public class ArchiveQuery {
+
+    private final long createdAfter;
+    private final long createdBefore;
+    private final Set<Status> statuses;
+    private final OutputMode outputMode;
+    private final Predicate<String> sessionId;
+    private final int limit;
+    private final int pageSize;
+
+    private ArchiveQuery(Builder builder) {
+        this.createdAfter = builder.createdAfter;
+        this.createdBefore = builder.createdBefore;
+        this.statuses = builder.statuses;
+        this.outputMode = builder.outputMode;
+        this.sessionId = builder.sessionId;
+        this.limit = builder.limit;
+        this.pageSize = builder.pageSize;
+    }
+
+    /**
+     * Use this class to create an ArchiveQuery object.
+     *
+     * @see ArchiveQuery
+     */
+    public static class Builder {
+        private long createdAfter = Long.MIN_VALUE;
+        private long createdBefore = Long.MAX_VALUE;
+        private Set<Status> statuses = null;
+        private OutputMode outputMode = null;
+        private Predicate<String> sessionId = null;
+        private int limit = Integer.MAX_VALUE;
+        private int pageSize = 50;
+
+        /**
+         * Selects archives created at or after a time. Pages of archives created before it are not
+         * requested.
+         *
+         * @param createdAfter The time, in milliseconds since the Unix epoch.
+         *
+         * @return The ArchiveQuery.Builder object with the createdAfter setting.
+         */
+        public Builder createdAfter(long createdAfter) {
+            this.createdAfter = createdAfter;
+            return this;
+        }
+
+        /**
+         * Selects archives created before a time.
+         *
+         * @param createdBefore The time, in milliseconds since the Unix epoch.
+         *
+         * @return The ArchiveQuery.Builder object with the createdBefore setting.
+         */
+        public Builder createdBefore(long createdBefore) {
+            this.createdBefore = createdBefore;
+            return this;
+        }
+
+        /**
+         * Selects archives with one of the given statuses.
+         *
+         * @return The ArchiveQuery.Builder object with the status setting.
+         */
+        public Builder status(Status status, Status... others) {
+            this.statuses = EnumSet.of(status, others);
+            return this;
+        }
+
+        /**
+         * Selects archives with the given output mode.
+         *
+         * @return The ArchiveQuery.Builder object with the outputMode setting.
+         */
+        public Builder outputMode(OutputMode outputMode) {
+            this.outputMode = outputMode;
+            return this;
+        }
+
+        /**
+         * Selects archives whose session ID matches a predicate.
+         *
+         * @return The ArchiveQuery.Builder object with the sessionId setting.
+         */
+        public Builder sessionId(Predicate<String> sessionId) {
+            this.sessionId = sessionId;
+            return this;
+        }
+
+        /**
+         * Stops the query once it has found this many archives.
+         *
+         * @return The ArchiveQuery.Builder object with the limit setting.
+         */
+        public Builder limit(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("The limit must be positive. limit: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Sets the number of archives requested by the first page of the query. Each following page is
+         * twice as large, up to 1000 archives, so a query that ends early reads little more than it
+         * needs, and a long one still uses large pages. The default is 50.
+         *
+         * @return The ArchiveQuery.Builder object with the pageSize setting.
+         */
+        public Builder pageSize(int pageSize) {
+            if (pageSize <= 0 || pageSize > 1000) {
+                throw new IllegalArgumentException("The page size must be between 1 and 1000. pageSize: " + pageSize);
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Builds the ArchiveQuery object.
+         *
+         * @return The ArchiveQuery object.
+         */
+        public ArchiveQuery build() {
+            return new ArchiveQuery(this);
+        }
+    }
+
+    /**
+     * Returns whether an archive is selected by the query.
+     */
+    public boolean matches(Archive archive) {
+        return archive.getCreatedAt() >= createdAfter
+                && archive.getCreatedAt() < createdBefore
+                && (statuses == null || statuses.contains(archive.getStatus()))
+                && (outputMode == null || outputMode == archive.getOutputMode())
+                && (sessionId == null || sessionId.test(archive.getSessionId()));
+    }
+
+    /**
+     * Returns whether an archive, and so every archive after it in the archive list, was created before
+     * the lower bound of the query.
+     */
+    public boolean isPastCutoff(Archive archive) {
+        return archive.getCreatedAt() < createdAfter;
+    }
+
+    /**
+     * Returns the maximum number of archives the query returns.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of archives requested by the first page of the query.
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.Archive.Status;
+import com.opentok.exception.OpenTokException;
+import com.opentok.exception.RequestException;
+import com.opentok.exception.RequestTimeoutException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches archives until they reach a final status: available, uploaded, deleted, failed or expired.
+ * <p>
+ * All watched archives are polled from a single timer. An archive that is still being recorded is
+ * polled every <code>maxInterval</code>. Once it has stopped, the upload is expected to take about
+ * <code>processingRatio</code> times its duration, so the archive is not polled again before then;
+ * past that point, it is polled at intervals that double from <code>minInterval</code> up to
+ * <code>maxInterval</code>.
+ * <p>
+ * Archives of the same session that are due together are read with one
+ * {@link OpenTok#listArchives(String, Handler)} call instead of one {@link OpenTok#getArchive} call
+ * each. The session of an archive is learned from its first poll.
+ * <p>
+ * Create an ArchiveWatcher object with the {@link Builder} class, or use the one of
+ * {@link OpenTok#watchArchive(String, Handler)}. This class is thread-safe.
+ */
+public class ArchiveWatcher {
+
+    private static final Set<Status> FINAL_STATUSES =
+            EnumSet.of(Status.AVAILABLE, Status.UPLOADED, Status.DELETED, Status.FAILED, Status.EXPIRED);
+
+    private final OpenTok opentok;
+    private final Vertx vertx;
+    private final long minInterval;
+    private final long maxInterval;
+    private final double processingRatio;
+    private final long watchTimeout;
+    private final long tickInterval;
+
+    private final Map<String, Watch> watches = new HashMap<>();
+    private long timerId = -1;
+    private boolean closed;
+
+    private ArchiveWatcher(Builder builder) {
+        this.opentok = builder.opentok;
+        this.vertx = builder.opentok.vertx;
+        this.minInterval = builder.minInterval;
+        this.maxInterval = builder.maxInterval;
+        this.processingRatio = builder.processingRatio;
+        this.watchTimeout = builder.watchTimeout;
+        this.tickInterval = Math.max(1, Math.min(builder.minInterval, 1000));
+    }
+
+    /**
+     * Use this class to create an ArchiveWatcher object.
+     */
+    public static class Builder {
+        private final OpenTok opentok;
+        private long minInterval = TimeUnit.SECONDS.toMillis(1);
+        private long maxInterval = TimeUnit.SECONDS.toMillis(30);
+        private double processingRatio = 0.1;
+        private long watchTimeout = TimeUnit.HOURS.toMillis(2);
+
+        public Builder(OpenTok opentok) {
+            this.opentok = opentok;
+        }
+
+        /**
+         * The shortest and longest time, in milliseconds, between two polls of an archive. Defaults to 1
+         * and 30 seconds.
+         */
+        public Builder interval(long minInterval, long maxInterval) {
+            if (minInterval < 1 || maxInterval < minInterval) {
+                throw new IllegalArgumentException("The intervals must be positive, and the maximum at least the " +
+                        "minimum. minInterval: " + minInterval + ", maxInterval: " + maxInterval);
+            }
+            this.minInterval = minInterval;
+            this.maxInterval = maxInterval;
+            return this;
+        }
+
+        /**
+         * The expected time to process a stopped archive, as a share of its duration. Defaults to 0.1.
+         */
+        public Builder processingRatio(double processingRatio) {
+            this.processingRatio = processingRatio;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, an archive is watched before its handler fails with a
+         * {@link RequestTimeoutException}. Defaults to 2 hours.
+         */
+        public Builder watchTimeout(long watchTimeout) {
+            this.watchTimeout = watchTimeout;
+            return this;
+        }
+
+        /**
+         * Builds the ArchiveWatcher object.
+         */
+        public ArchiveWatcher build() {
+            return new ArchiveWatcher(this);
+        }
+    }
+
+    /**
+     * Watches an archive until it reaches a final status.
+     *
+     * @param archiveId The ID of the archive.
+     * Calls handler with: The {@link Archive} with its final status. Fails with a
+     * {@link RequestTimeoutException} if the archive did not reach a final status in time, and with a
+     * {@link RequestException} if it does not exist.
+     */
+    public void watch(String archiveId, Handler<AsyncResult<Archive>> handler) {
+        watch(archiveId, null, handler);
+    }
+
+    /**
+     * Watches an archive of a known session until it reaches a final status. Archives of the same session
+     * are polled together from the first poll on.
+     *
+     * @param archiveId The ID of the archive.
+     * @param sessionId The session ID of the archive.
+     *
+     * @see #watch(String, Handler)
+     */
+    public void watch(String archiveId, String sessionId, Handler<AsyncResult<Archive>> handler) {
+        OpenTokException rejected = null;
+        synchronized (this) {
+            if (closed) {
+                rejected = new OpenTokException("The archive watcher was closed.");
+            } else {
+                long now = System.currentTimeMillis();
+                Watch watch = watches.get(archiveId);
+                if (watch == null) {
+                    watch = new Watch(archiveId, sessionId, now);
+                    watch.dueAt = now;
+                    watches.put(archiveId, watch);
+                } else if (watch.sessionId == null) {
+                    watch.sessionId = sessionId;
+                }
+                watch.handlers.add(handler);
+                if (timerId == -1) {
+                    timerId = vertx.setPeriodic(tickInterval, id -> tick());
+                }
+            }
+        }
+        if (rejected != null) {
+            handler.handle(Future.failedFuture(rejected));
+        }
+    }
+
+    /**
+     * Returns the number of archives being watched.
+     */
+    public synchronized int size() {
+        return watches.size();
+    }
+
+    /**
+     * Stops watching all archives. Their handlers are not called.
+     */
+    public synchronized void close() {
+        closed = true;
+        watches.clear();
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Watch> expired = new ArrayList<>();
+        List<Watch> single = new ArrayList<>();
+        Map<String, List<Watch>> sessions = new HashMap<>();
+        synchronized (this) {
+            for (Watch watch : watches.values()) {
+                if (now - watch.watchedSince >= watchTimeout) {
+                    expired.add(watch);
+                } else if (!watch.polling && now >= watch.dueAt) {
+                    watch.polling = true;
+                    if (watch.sessionId != null) {
+                        sessions.computeIfAbsent(watch.sessionId, s -> new ArrayList<>()).add(watch);
+                    } else {
+                        single.add(watch);
+                    }
+                }
+            }
+            for (Watch watch : expired) {
+                watches.remove(watch.archiveId);
+            }
+            for (List<Watch> group : sessions.values()) {
+                if (group.size() == 1) {
+                    single.add(group.get(0));
+                }
+            }
+            sessions.values().removeIf(group -> group.size() == 1);
+            if (watches.isEmpty() && timerId != -1) {
+                vertx.cancelTimer(timerId);
+                timerId = -1;
+            }
+        }
+
+        for (Watch watch : expired) {
+            watch.complete(Future.failedFuture(new RequestTimeoutException("The archive " + watch.archiveId +
+                    " did not reach a final status in " + watchTimeout + " ms.", watchTimeout)));
+        }
+        for (Watch watch : single) {
+            opentok.getArchive(watch.archiveId, result -> {
+                if (result.succeeded()) {
+                    update(result.result());
+                } else {
+                    failed(watch, result.cause());
+                }
+            });
+        }
+        for (Map.Entry<String, List<Watch>> session : sessions.entrySet()) {
+            opentok.listArchives(session.getKey(), result -> {
+                if (result.failed()) {
+                    for (Watch watch : session.getValue()) {
+                        failed(watch, result.cause());
+                    }
+                    return;
+                }
+                for (Archive archive : result.result()) {
+                    update(archive);
+                }
+                // archives missing from the list of their session are read on their own next time
+                synchronized (this) {
+                    for (Watch watch : session.getValue()) {
+                        if (watch.polling && watches.get(watch.archiveId) == watch) {
+                            watch.polling = false;
+                            watch.sessionId = null;
+                            watch.dueAt = System.currentTimeMillis();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the status of an archive, completing its watch if the status is final.
+     */
+    private void update(Archive archive) {
+        Watch watch;
+        synchronized (this) {
+            watch = watches.get(archive.getId());
+            if (watch == null) {
+                return;
+            }
+            if (!FINAL_STATUSES.contains(archive.getStatus())) {
+                watch.polling = false;
+                watch.sessionId = archive.getSessionId();
+                watch.dueAt = nextPoll(watch, archive);
+                return;
+            }
+            watches.remove(archive.getId());
+        }
+        watch.complete(Future.succeededFuture(archive));
+    }
+
+    private void failed(Watch watch, Throwable cause) {
+        boolean notFound = cause instanceof RequestException && ((RequestException) cause).getStatusCode() == 404;
+        synchronized (this) {
+            if (watches.get(watch.archiveId) != watch) {
+                return;
+            }
+            if (!notFound) {
+                // the client already retried; try again at the longest interval
+                watch.polling = false;
+                watch.dueAt = System.currentTimeMillis() + maxInterval;
+                return;
+            }
+            watches.remove(watch.archiveId);
+        }
+        watch.complete(Future.failedFuture(cause));
+    }
+
+    private long nextPoll(Watch watch, Archive archive) {
+        long now = System.currentTimeMillis();
+        if (archive.getStatus() != Status.STOPPED) {
+            watch.backoff = minInterval;
+            return now + maxInterval;
+        }
+        // the API reports the duration once the recording stopped
+        long stoppedAt = archive.getCreatedAt() + TimeUnit.SECONDS.toMillis(archive.getDuration());
+        long expectedAt = stoppedAt + (long) (TimeUnit.SECONDS.toMillis(archive.getDuration()) * processingRatio);
+        if (now < expectedAt) {
+            return now + Math.max(minInterval, Math.min(maxInterval, expectedAt - now));
+        }
+        long interval = watch.backoff;
+        watch.backoff = Math.min(maxInterval, watch.backoff * 2);
+        return now + interval;
+    }
+
+    private final class Watch {
+        private final String archiveId;
+        private final long watchedSince;
+        private final List<Handler<AsyncResult<Archive>>> handlers = new ArrayList<>(1);
+        private String sessionId;
+        private long dueAt;
+        private long backoff = minInterval;
+        private boolean polling;
+
+        private Watch(String archiveId, String sessionId, long watchedSince) {
+            this.archiveId = archiveId;
+            this.sessionId = sessionId;
+            this.watchedSince = watchedSince;
+        }
+
+        private void complete(AsyncResult<Archive> result) {
+            for (Handler<AsyncResult<Archive>> handler : handlers) {
+                handler.handle(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+
+/**
+ * Accumulates the chunks of a callback request body, up to a maximum size. A body received in a
+ * single chunk is used as it is.
+ */
+final class CallbackBody {
+
+    private final int maxBodySize;
+    private Buffer first;
+    private Buffer joined;
+    private boolean tooLarge;
+
+    CallbackBody(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Returns the Content-Length of a request, or -1 if it has none.
+     */
+    static long declaredLength(HttpServerRequest request) {
+        String contentLength = request.getHeader("Content-Length");
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    void append(Buffer chunk) {
+        if (tooLarge) {
+            return;
+        }
+        if (first == null) {
+            first = chunk;
+        } else {
+            if (joined == null) {
+                joined = Buffer.buffer(first.length() + chunk.length()).appendBuffer(first);
+            }
+            joined.appendBuffer(chunk);
+        }
+        if (get().length() > maxBodySize) {
+            tooLarge = true;
+            first = joined = null;
+        }
+    }
+
+    boolean isTooLarge() {
+        return tooLarge;
+    }
+
+    /**
+     * Returns the body, or null if it was empty or too large.
+     */
+    Buffer get() {
+        return joined != null ? joined : first;
+    }
+}
@@ -7,24 +7,33 @@
  */
 package com.opentok;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.opentok.exception.InvalidArgumentException;
 import com.opentok.exception.OpenTokException;
-import com.opentok.exception.RequestException;
-import com.opentok.util.Crypto;
+import com.opentok.exception.RequestTimeoutException;
+import com.opentok.util.ApiEndpoint;
+import com.opentok.util.ArchiveCache;
+import com.opentok.util.ArchiveCursor;
+import com.opentok.util.ArchiveStream;
+import com.opentok.util.CircuitBreaker;
+import com.opentok.util.HttpClientStats;
+import com.opentok.util.JsonCodec;
 import com.opentok.util.OpenTokHttpClient;
+import com.opentok.util.ParallelArchiveStream;
+import com.opentok.util.SessionId;
+import com.opentok.util.TokenEngine;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.streams.ReadStream;
 
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
 * Contains methods for creating OpenTok sessions, generating tokens, and working with archives.
@@ -40,14 +49,13 @@ public class OpenTok {
 
     private int apiKey;
     private String apiSecret;
+    private TokenEngine tokenEngine;
     protected OpenTokHttpClient client;
     protected Vertx vertx;
-    static protected ObjectReader archiveReader = new ObjectMapper()
-            .readerFor(Archive.class);
-    static protected ObjectReader archiveListReader = new ObjectMapper()
-            .readerFor(ArchiveList.class);
-    static protected ObjectReader createdSessionReader = new ObjectMapper()
-            .readerFor(CreatedSession[].class);
+    private ArchiveWatcher archiveWatcher;
+    static protected ObjectReader archiveReader = JsonCodec.ARCHIVE_READER;
+    static protected ObjectReader archiveListReader = JsonCodec.ARCHIVE_LIST_READER;
+    static protected ObjectReader createdSessionReader = JsonCodec.CREATED_SESSIONS_READER;
 
     /**
      * Creates an OpenTok object.
@@ -59,6 +67,7 @@ public class OpenTok {
         this.apiKey = apiKey;
         this.apiSecret = apiSecret.trim();
         this.vertx = vertx;
+        this.tokenEngine = new TokenEngine(apiKey, this.apiSecret);
         this.client = new OpenTokHttpClient.Builder(apiKey, apiSecret, vertx).build();
     }
 
@@ -66,24 +75,10 @@ public class OpenTok {
         this.apiKey = apiKey;
         this.apiSecret = apiSecret.trim();
         this.vertx = vertx;
+        this.tokenEngine = new TokenEngine(apiKey, this.apiSecret);
         this.client = httpClient;
     }
 
-    private <T> Handler<AsyncResult<String>> handleResponse(Handler<AsyncResult<T>> handler, ObjectReader reader) {
-        return response -> {
-            if (response.failed()) {
-                handler.handle(Future.failedFuture(response.cause()));
-            } else {
-                String archives = response.result();
-                try {
-                    handler.handle(Future.succeededFuture(reader.readValue(archives)));
-                } catch (Exception e) {
-                    handler.handle(Future.failedFuture(new RequestException("Exception mapping json: " + e.getMessage(), e)));
-                }
-            }
-        };
-    }
-
     /**
      * Creates a token for connecting to an OpenTok session. In order to authenticate a user
      * connecting to an OpenTok session, the client passes a token when connecting to the session.
@@ -134,23 +129,80 @@ public class OpenTok {
      * @return The token string.
      */
     public String generateToken(String sessionId, TokenOptions tokenOptions) throws InvalidArgumentException, OpenTokException {
-        List<String> sessionIdParts = null;
+        validateSessionId(sessionId);
+        return tokenEngine.generateToken(sessionId, tokenOptions);
+    }
+
+    /**
+     * Creates a token for connecting to an OpenTok session from a compiled {@link TokenTemplate}.
+     * Use this instead of {@link #generateToken(String, TokenOptions)} when you create many tokens
+     * with the same role, initial layout class list and connection data: the template does that
+     * work once instead of once per token.
+     *
+     * @param sessionId The session ID corresponding to the session to which the user will connect.
+     *
+     * @param tokenTemplate The compiled options for the token.
+     *
+     * @return The token string.
+     */
+    public String generateToken(String sessionId, TokenTemplate tokenTemplate) throws InvalidArgumentException, OpenTokException {
+        if (tokenTemplate == null) {
+            throw new InvalidArgumentException("Token template cannot be null");
+        }
+        validateSessionId(sessionId);
+        return tokenEngine.generateToken(sessionId, tokenTemplate.template(), System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Creates one token for each entry of <code>tokenOptions</code>, all for the same session. The
+     * session ID is validated once for the whole batch, which makes this considerably cheaper than
+     * calling {@link #generateToken(String, TokenOptions)} in a loop when issuing tokens for a large
+     * roster.
+     *
+     * @param sessionId The session ID corresponding to the session to which the users will connect.
+     *
+     * @param tokenOptions The options for each token. See {@link #generateToken(String, TokenOptions)}.
+     *
+     * @return The token strings, in the same order as <code>tokenOptions</code>.
+     */
+    public List<String> generateTokens(String sessionId, List<TokenOptions> tokenOptions) throws InvalidArgumentException, OpenTokException {
+        return generateTokens(sessionId, tokenOptions, null);
+    }
+
+    /**
+     * Creates one token for each entry of <code>tokenOptions</code>, all for the same session, splitting
+     * large batches across the given fork-join pool.
+     *
+     * @param sessionId The session ID corresponding to the session to which the users will connect.
+     *
+     * @param tokenOptions The options for each token. See {@link #generateToken(String, TokenOptions)}.
+     *
+     * @param pool The pool used to mint batches larger than {@link TokenEngine#PARALLEL_THRESHOLD}
+     * tokens, for example <code>ForkJoinPool.commonPool()</code>. Pass <code>null</code> to mint
+     * every token on the calling thread.
+     *
+     * @return The token strings, in the same order as <code>tokenOptions</code>.
+     *
+     * @see #generateTokens(String, List)
+     */
+    public List<String> generateTokens(String sessionId, List<TokenOptions> tokenOptions, ForkJoinPool pool) throws InvalidArgumentException, OpenTokException {
+        if (tokenOptions == null) {
+            throw new InvalidArgumentException("Token options cannot be null");
+        }
+        validateSessionId(sessionId);
+        return tokenEngine.generateTokens(sessionId, tokenOptions, pool);
+    }
+
+    private SessionId validateSessionId(String sessionId) throws InvalidArgumentException {
         if (sessionId == null || "".equals(sessionId)) {
             throw new InvalidArgumentException("Session not valid");
         }
 
-        try {
-            sessionIdParts = Crypto.decodeSessionId(sessionId);
-        } catch (UnsupportedEncodingException e) {
+        SessionId parsed = SessionId.parse(sessionId);
+        if (parsed.getPartnerId() != this.apiKey) {
             throw new InvalidArgumentException("Session ID was not valid");
         }
-        if (!sessionIdParts.contains(Integer.toString(this.apiKey))) {
-            throw new InvalidArgumentException("Session ID was not valid");
-        }
-
-        // NOTE: kind of wasteful of a Session instance
-        Session session = new Session(sessionId, apiKey, apiSecret);
-        return session.generateToken(tokenOptions);
+        return parsed;
     }
 
     /**
@@ -252,23 +304,31 @@ public class OpenTok {
      * session. You will use this session ID in the client SDKs to identify the session.
      */
     public void createSession(SessionProperties properties, Handler<AsyncResult<Session>> handler) {
+        createSession(properties, 0, handler);
+    }
+
+    /**
+     * Creates a new OpenTok session, failing if the OpenTok API does not respond within
+     * <code>timeout</code> milliseconds.
+     *
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     * @see #createSession(SessionProperties, Handler)
+     */
+    public void createSession(SessionProperties properties, long timeout, Handler<AsyncResult<Session>> handler) {
         final SessionProperties _properties = properties != null ? properties : new SessionProperties.Builder().build();
         final Map<String, Collection<String>> params = _properties.toMap();
-        this.client.createSession(params, response -> {
+        this.client.createSession(params, timeout, response -> {
             if (response.failed()) {
                 handler.handle(Future.failedFuture(response.cause()));
             } else {
-                String result = response.result();
-                try {
-                    CreatedSession[] sessions = createdSessionReader.readValue(result);
-                    // A bit ugly, but API response should include an array with one session
-                    if (sessions.length != 1) {
-                        handler.handle(Future.failedFuture(new OpenTokException(String.format("Unexpected number of sessions created %d", sessions.length))));
-                    } else {
-                        handler.handle(Future.succeededFuture(new Session(sessions[0].getId(), apiKey, apiSecret, _properties)));
-                    }
-                } catch (IOException e) {
-                    handler.handle(Future.failedFuture(new OpenTokException("Cannot create session. Could not read the response: " + result, e)));
+                CreatedSession[] sessions = response.result();
+                // A bit ugly, but API response should include an array with one session
+                if (sessions.length != 1) {
+                    handler.handle(Future.failedFuture(new OpenTokException(String.format("Unexpected number of sessions created %d", sessions.length))));
+                } else {
+                    handler.handle(Future.succeededFuture(new Session(sessions[0].getId(), apiKey, apiSecret, _properties, tokenEngine)));
                 }
             }
         });
@@ -316,6 +376,35 @@ public class OpenTok {
         createSession(null, handler);
     }
 
+    /**
+     * Creates a session for each of the given properties, with at most <code>concurrency</code> sessions
+     * created at the same time. Failed calls are retried with the default settings of
+     * {@link SessionCreator.Builder}; use a SessionCreator for other settings.
+     *
+     * @param properties The properties of the sessions.
+     * @param concurrency The largest number of sessions created at the same time.
+     *
+     * @return The stream of the {@link SessionResult} of each session, in the order they are created.
+     */
+    public ReadStream<SessionResult> createSessions(Iterable<SessionProperties> properties, int concurrency) {
+        return new SessionCreator.Builder(this).concurrency(concurrency).build().createSessions(properties);
+    }
+
+    /**
+     * Creates a session for each of the properties read from a stream, with at most
+     * <code>concurrency</code> sessions created at the same time.
+     *
+     * @param properties The stream of the properties of the sessions.
+     * @param concurrency The largest number of sessions created at the same time.
+     *
+     * @return The stream of the {@link SessionResult} of each session, in the order they are created.
+     *
+     * @see #createSessions(Iterable, int)
+     */
+    public ReadStream<SessionResult> createSessions(ReadStream<SessionProperties> properties, int concurrency) {
+        return new SessionCreator.Builder(this).concurrency(concurrency).build().createSessions(properties);
+    }
+
     /**
      * Gets an {@link Archive} object for the given archive ID.
      *
@@ -323,7 +412,20 @@ public class OpenTok {
      * Calls handler with: The {@link Archive} object.
      */
     public void getArchive(String archiveId, Handler<AsyncResult<Archive>> handler) {
-        this.client.getArchive(archiveId, handleResponse(handler, archiveReader));
+        getArchive(archiveId, 0, handler);
+    }
+
+    /**
+     * Gets an {@link Archive} object for the given archive ID.
+     *
+     * @param archiveId The archive ID.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     * Calls handler with: The {@link Archive} object.
+     */
+    public void getArchive(String archiveId, long timeout, Handler<AsyncResult<Archive>> handler) {
+        this.client.getArchive(archiveId, timeout, handler);
     }
 
     /**
@@ -350,7 +452,24 @@ public class OpenTok {
      * Calls handler with: A List of {@link Archive} objects.
      */
     public void listArchives(int offset, int count, Handler<AsyncResult<ArchiveList>> handler) {
-        this.client.getArchives(offset, count, handleResponse(handler, archiveListReader));
+        listArchives(offset, count, 0, handler);
+    }
+
+    /**
+     * Returns a List of {@link Archive} objects, representing archives that are both
+     * both completed and in-progress, for your API key.
+     *
+     * @param offset The index offset of the first archive.
+     * @param count The number of archives to be returned.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     * Calls handler with: A List of {@link Archive} objects.
+     *
+     * @see #listArchives(int, int, Handler)
+     */
+    public void listArchives(int offset, int count, long timeout, Handler<AsyncResult<ArchiveList>> handler) {
+        this.client.getArchives(offset, count, timeout, handler);
     }
 
     /***
@@ -362,7 +481,158 @@ public class OpenTok {
      * Calls handler with: A List of {@link Archive} objects.
      */
     public void listArchives(String sessionId, Handler<AsyncResult<ArchiveList>> handler) {
-        this.client.getArchives(sessionId, handleResponse(handler, archiveListReader));
+        listArchives(sessionId, 0, handler);
+    }
+
+    /***
+     * Returns a List of {@link Archive} objects, representing archives that are both both completed and in-progress,
+     * for your API key.
+     *
+     * @param sessionId
+     *            The sessionId for which archives should be retrieved.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     * Calls handler with: A List of {@link Archive} objects.
+     */
+    public void listArchives(String sessionId, long timeout, Handler<AsyncResult<ArchiveList>> handler) {
+        this.client.getArchives(sessionId, timeout, handler);
+    }
+
+    /**
+     * Returns a stream of the {@link Archive} objects for your API key, in the order of
+     * {@link #listArchives(int, int, Handler)}. Each archive is emitted as soon as it has been read from
+     * the response, so the first ones are available before the whole list has been received, and only
+     * the archives the stream is holding for a paused consumer are kept in memory.
+     * <p>
+     * The timeout covers the whole response, including the time the stream is paused.
+     *
+     * @param offset The index offset of the first archive.
+     * @param count The number of archives to be returned. The maximum number of archives returned
+     * is 1000.
+     * @param timeout The timeout of the call in milliseconds, or 0 for the default timeout of the
+     * operation.
+     */
+    public ArchiveStream streamArchives(int offset, int count, long timeout) {
+        return this.client.streamArchives(offset, count, timeout);
+    }
+
+    /**
+     * Returns a stream of the {@link Archive} objects of a session.
+     *
+     * @param sessionId The sessionId for which archives should be retrieved.
+     * @param timeout The timeout of the call in milliseconds, or 0 for the default timeout of the
+     * operation.
+     *
+     * @see #streamArchives(int, int, long)
+     */
+    public ArchiveStream streamArchives(String sessionId, long timeout) {
+        return this.client.streamArchives(sessionId, timeout);
+    }
+
+    /**
+     * Returns a stream of every {@link Archive} of your API key, most recently started first, read 1000
+     * archives at a time.
+     *
+     * @see #streamAllArchives(int, long)
+     */
+    public ArchiveCursor streamAllArchives() {
+        return streamAllArchives(1000, 0);
+    }
+
+    /**
+     * Returns a stream of every {@link Archive} of your API key, most recently started first. Pages are
+     * requested with {@link #listArchives(int, int, long, Handler)}; the next page is fetched while the
+     * consumer processes the current one, and no more than two pages are held at a time.
+     *
+     * @param pageSize The number of archives requested at a time, at most 1000.
+     * @param timeout The timeout of each page request in milliseconds, or 0 for the default timeout of
+     * the operation.
+     */
+    public ArchiveCursor streamAllArchives(int pageSize, long timeout) {
+        return this.client.streamAllArchives(pageSize, timeout);
+    }
+
+    /**
+     * Returns the {@link Archive} objects of your API key that a query matches, most recently started
+     * first. Pages of the archive list are read until the query's lower bound on the creation time or
+     * its limit is reached, so a query for recent archives does not read the whole list.
+     *
+     * @param query The {@link ArchiveQuery} selecting the archives.
+     * Calls handler with: A List of the matching {@link Archive} objects.
+     */
+    public void queryArchives(ArchiveQuery query, Handler<AsyncResult<List<Archive>>> handler) {
+        List<Archive> archives = new ArrayList<>();
+        ArchiveCursor cursor = streamArchives(query, 0);
+        cursor.exceptionHandler(t -> handler.handle(Future.failedFuture(t)));
+        cursor.endHandler(v -> handler.handle(Future.succeededFuture(archives)));
+        cursor.handler(archives::add);
+    }
+
+    /**
+     * Returns a stream of the {@link Archive} objects of your API key that a query matches, most recently
+     * started first.
+     *
+     * @param query The {@link ArchiveQuery} selecting the archives.
+     * @param timeout The timeout of each page request in milliseconds, or 0 for the default timeout of
+     * the operation.
+     *
+     * @see #queryArchives(ArchiveQuery, Handler)
+     */
+    public ArchiveCursor streamArchives(ArchiveQuery query, long timeout) {
+        return this.client.queryArchives(query, timeout);
+    }
+
+    /**
+     * Returns a stream of every {@link Archive} of your API key, fetching the pages of the archive list
+     * concurrently. Once the first page gives the total count of archives, the remaining pages are
+     * requested with up to <code>parallelism</code> requests in flight. Archives started during the
+     * listing do not cause archives to be missed or emitted twice.
+     *
+     * @param pageSize The number of archives requested at a time, at most 1000.
+     * @param parallelism The maximum number of page requests in flight.
+     * @param ordered Whether archives are emitted most recently started first, as in
+     * {@link #listArchives(int, int, Handler)}, rather than as soon as their page arrives.
+     * @param timeout The timeout of each page request in milliseconds, or 0 for the default timeout of
+     * the operation.
+     */
+    public ParallelArchiveStream streamAllArchives(int pageSize, int parallelism, boolean ordered, long timeout) {
+        return this.client.streamAllArchives(pageSize, parallelism, ordered, timeout);
+    }
+
+    /**
+     * Returns every {@link Archive} of your API key, most recently started first, fetching the pages of
+     * the archive list concurrently.
+     *
+     * @param parallelism The maximum number of page requests in flight.
+     * Calls handler with: An {@link ArchiveList} of all the archives.
+     *
+     * @see #streamAllArchives(int, int, boolean, long)
+     */
+    public void listAllArchives(int parallelism, Handler<AsyncResult<ArchiveList>> handler) {
+        listAllArchives(1000, parallelism, 0, handler);
+    }
+
+    /**
+     * Returns every {@link Archive} of your API key, most recently started first, fetching the pages of
+     * the archive list concurrently.
+     *
+     * @param pageSize The number of archives requested at a time, at most 1000.
+     * @param parallelism The maximum number of page requests in flight.
+     * @param timeout The timeout of each page request in milliseconds, or 0 for the default timeout of
+     * the operation.
+     * Calls handler with: An {@link ArchiveList} of all the archives.
+     *
+     * @see #streamAllArchives(int, int, boolean, long)
+     */
+    public void listAllArchives(int pageSize, int parallelism, long timeout,
+                                Handler<AsyncResult<ArchiveList>> handler) {
+        List<Archive> archives = new ArrayList<>();
+        ParallelArchiveStream stream = this.client.streamAllArchives(pageSize, parallelism, true, timeout);
+        stream.exceptionHandler(t -> handler.handle(Future.failedFuture(t)));
+        stream.endHandler(v -> handler.handle(Future.succeededFuture(
+                new ArchiveList(archives, Math.max(stream.getTotalCount(), archives.size())))));
+        stream.handler(archives::add);
     }
 
     /**
@@ -388,11 +658,28 @@ public class OpenTok {
      * Calls handler with: The Archive object. This object includes properties defining the archive, including the archive ID.
      */
     public void startArchive(String sessionId, ArchiveProperties properties, Handler<AsyncResult<Archive>> handler) {
+        startArchive(sessionId, properties, 0, handler);
+    }
+
+    /**
+     * Starts archiving an OpenTok session, failing if the OpenTok API does not respond within
+     * <code>timeout</code> milliseconds.
+     *
+     * @param sessionId The session ID of the OpenTok session to archive.
+     * @param properties This ArchiveProperties object defines options for the archive.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     *
+     * @see #startArchive(String, ArchiveProperties, Handler)
+     */
+    public void startArchive(String sessionId, ArchiveProperties properties, long timeout,
+                             Handler<AsyncResult<Archive>> handler) {
         if (sessionId == null || "".equals(sessionId)) {
             handler.handle(Future.failedFuture(new InvalidArgumentException("Session not valid")));
         } else {
             // TODO: do validation on sessionId and name
-            this.client.startArchive(sessionId, properties, handleResponse(handler, archiveReader));
+            this.client.startArchive(sessionId, properties, timeout, handler);
         }
     }
 
@@ -415,7 +702,20 @@ public class OpenTok {
      * Calls handler with: The Archive object corresponding to the archive being stopped.
      */
     public void stopArchive(String archiveId, Handler<AsyncResult<Archive>> handler) {
-        this.client.stopArchive(archiveId, handleResponse(handler, archiveReader));
+        stopArchive(archiveId, 0, handler);
+    }
+
+    /**
+     * Stops an OpenTok archive that is being recorded.
+     *
+     * @param archiveId The archive ID of the archive you want to stop recording.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     * Calls handler with: The Archive object corresponding to the archive being stopped.
+     */
+    public void stopArchive(String archiveId, long timeout, Handler<AsyncResult<Archive>> handler) {
+        this.client.stopArchive(archiveId, timeout, handler);
     }
 
     /**
@@ -428,17 +728,19 @@ public class OpenTok {
      * @param archiveId The archive ID of the archive you want to delete.
      */
     public void deleteArchive(String archiveId, Handler<AsyncResult<Void>> handler) {
-        this.client.deleteArchive(archiveId, response -> {
-            if (response.failed()) {
-                handler.handle(Future.failedFuture(response.cause()));
-            } else {
-                try {
-                    handler.handle(Future.succeededFuture());
-                } catch (Exception e) {
-                    handler.handle(Future.failedFuture(new RequestException("Exception mapping json: " + e.getMessage(), e)));
-                }
-            }
-        });
+        deleteArchive(archiveId, 0, handler);
+    }
+
+    /**
+     * Deletes an OpenTok archive.
+     *
+     * @param archiveId The archive ID of the archive you want to delete.
+     * @param timeout How long, in milliseconds, the call may take, from sending the request to reading the
+     * response, before it fails with a {@link RequestTimeoutException}. 0 uses the default timeout of the
+     * operation.
+     */
+    public void deleteArchive(String archiveId, long timeout, Handler<AsyncResult<Void>> handler) {
+        this.client.deleteArchive(archiveId, timeout, handler);
     }
 
     public static class Builder {
@@ -447,6 +749,7 @@ public class OpenTok {
         private String apiUrl;
         private Vertx vertx;
         private HttpClientOptions httpClientOptions;
+        private Handler<OpenTokHttpClient.Builder> httpClientConfigurer;
 
         public Builder(int apiKey, String apiSecret, Vertx vertx) {
             this.apiKey = apiKey;
@@ -464,6 +767,22 @@ public class OpenTok {
             return this;
         }
 
+        /**
+         * Customizes the HTTP client used for the OpenTok REST API, for example its connection pool:
+         *
+         * <pre>
+         * new OpenTok.Builder(apiKey, apiSecret, vertx)
+         *     .configureHttpClient(client -&gt; client.maxPoolSize(64).pipelining(true))
+         *     .build();
+         * </pre>
+         *
+         * The configurer is called after the other settings of this builder have been applied.
+         */
+        public Builder configureHttpClient(Handler<OpenTokHttpClient.Builder> httpClientConfigurer) {
+            this.httpClientConfigurer = httpClientConfigurer;
+            return this;
+        }
+
         public OpenTok build() {
             OpenTokHttpClient.Builder clientBuilder = new OpenTokHttpClient.Builder(apiKey, apiSecret, this.vertx);
 
@@ -471,16 +790,81 @@ public class OpenTok {
                 clientBuilder.apiUrl(this.apiUrl);
             }
 
-            if (this.httpClientOptions == null) {
-                return new OpenTok(this.apiKey, this.apiSecret, this.vertx, clientBuilder.build());
-            } else {
+            if (this.httpClientOptions != null) {
                 clientBuilder.httpClientOptions(this.httpClientOptions);
-                return new OpenTok(this.apiKey, this.apiSecret, this.vertx, clientBuilder.build());
             }
+
+            if (this.httpClientConfigurer != null) {
+                this.httpClientConfigurer.handle(clientBuilder);
+            }
+
+            return new OpenTok(this.apiKey, this.apiSecret, this.vertx, clientBuilder.build());
+        }
+    }
+
+    /**
+     * Returns the request and connection pool statistics of the HTTP client used for the OpenTok
+     * REST API.
+     */
+    public HttpClientStats getHttpClientStats() {
+        return this.client.getStats();
+    }
+
+    /**
+     * Returns the circuit breaker protecting a group of OpenTok REST endpoints, or null if circuit
+     * breakers are disabled.
+     */
+    public CircuitBreaker getCircuitBreaker(ApiEndpoint endpoint) {
+        return this.client.getCircuitBreaker(endpoint);
+    }
+
+    /**
+     * Returns the cache of archive metadata, or null if it was not enabled with
+     * {@link OpenTokHttpClient.Builder#archiveCache}.
+     */
+    public ArchiveCache getArchiveCache() {
+        return this.client.getArchiveCache();
+    }
+
+    /**
+     * Calls handler once an archive reaches a final status: available, uploaded, deleted, failed or
+     * expired. Archives are polled by a shared {@link ArchiveWatcher} with its default settings; create
+     * an ArchiveWatcher with {@link ArchiveWatcher.Builder} for other settings.
+     *
+     * @param archiveId The archive ID.
+     * Calls handler with: The {@link Archive} with its final status.
+     */
+    public void watchArchive(String archiveId, Handler<AsyncResult<Archive>> handler) {
+        archiveWatcher().watch(archiveId, handler);
+    }
+
+    /**
+     * Calls handler once an archive of a known session reaches a final status. Archives of the same
+     * session are polled with a single request.
+     *
+     * @param archiveId The archive ID.
+     * @param sessionId The session ID of the archive.
+     * Calls handler with: The {@link Archive} with its final status.
+     *
+     * @see #watchArchive(String, Handler)
+     */
+    public void watchArchive(String archiveId, String sessionId, Handler<AsyncResult<Archive>> handler) {
+        archiveWatcher().watch(archiveId, sessionId, handler);
+    }
+
+    private synchronized ArchiveWatcher archiveWatcher() {
+        if (archiveWatcher == null) {
+            archiveWatcher = new ArchiveWatcher.Builder(this).build();
         }
+        return archiveWatcher;
     }
 
     public void close() {
+        synchronized (this) {
+            if (archiveWatcher != null) {
+                archiveWatcher.close();
+            }
+        }
         this.client.close();
     }
 }
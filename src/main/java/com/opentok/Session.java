@@ -8,18 +8,9 @@
 package com.opentok;
 
 import com.opentok.exception.OpenTokException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SignatureException;
-import java.util.Random;
-import java.util.stream.Collectors;
-
 import com.opentok.exception.InvalidArgumentException;
-import com.opentok.util.Crypto;
+import com.opentok.util.TokenEngine;
 import io.vertx.core.Handler;
-import org.apache.commons.codec.binary.Base64;
 
 
 /**
@@ -33,19 +24,22 @@ public class Session {
     private int apiKey;
     private String apiSecret;
     private SessionProperties properties;
+    private TokenEngine tokenEngine;
     
     protected Session(String sessionId, int apiKey, String apiSecret) {
-        this.sessionId = sessionId;
-        this.apiKey = apiKey;
-        this.apiSecret = apiSecret;
-        this.properties = new SessionProperties.Builder().build();
+        this(sessionId, apiKey, apiSecret, new SessionProperties.Builder().build());
     }
     
     protected Session(String sessionId, int apiKey, String apiSecret, SessionProperties properties) {
+        this(sessionId, apiKey, apiSecret, properties, new TokenEngine(apiKey, apiSecret));
+    }
+
+    protected Session(String sessionId, int apiKey, String apiSecret, SessionProperties properties, TokenEngine tokenEngine) {
         this.sessionId = sessionId;
         this.apiKey = apiKey;
         this.apiSecret = apiSecret;
         this.properties = properties;
+        this.tokenEngine = tokenEngine;
     }
     
     /**
@@ -105,92 +99,21 @@ public class Session {
      * @return The token string.
      */
     public String generateToken(TokenOptions tokenOptions) throws InvalidArgumentException, OpenTokException {
-        // Token format
-        //
-        // | ------------------------------  tokenStringBuilder ----------------------------- |
-        // | "T1=="+Base64Encode(| --------------------- innerBuilder --------------------- |)|
-        //                       | "partner_id={apiKey}&sig={sig}:| -- dataStringBuilder -- |
-
-        if (tokenOptions == null) {
-            throw new InvalidArgumentException("Token options cannot be null");
-        }
-
-        Role role = tokenOptions.getRole();
-        double expireTime = tokenOptions.getExpireTime(); // will be 0 if nothing was explicitly set
-        String data = tokenOptions.getData();             // will be null if nothing was explicitly set
-        Long create_time = new Long(System.currentTimeMillis() / 1000).longValue();
-
-        StringBuilder dataStringBuilder = new StringBuilder();
-        Random random = new Random();
-        int nonce = random.nextInt();
-        dataStringBuilder.append("session_id=");
-        dataStringBuilder.append(sessionId);
-        dataStringBuilder.append("&create_time=");
-        dataStringBuilder.append(create_time);
-        dataStringBuilder.append("&nonce=");
-        dataStringBuilder.append(nonce);
-        dataStringBuilder.append("&role=");
-        dataStringBuilder.append(role);
-        if(tokenOptions.getInitialLayoutClassList() != null ){
-            dataStringBuilder.append("&initial_layout_class_list=");
-            dataStringBuilder.append(tokenOptions.getInitialLayoutClassList().stream().collect(Collectors.joining(" ")));
-        }
-
-        double now = System.currentTimeMillis() / 1000L;
-        if (expireTime == 0) {
-            expireTime = now + (60*60*24); // 1 day
-        } else if(expireTime < now-1) {
-            throw new InvalidArgumentException(
-                    "Expire time must be in the future. relative time: "+ (expireTime - now));
-        } else if(expireTime > (now + (60*60*24*30) /* 30 days */)) {
-            throw new InvalidArgumentException(
-                    "Expire time must be in the next 30 days. too large by "+ (expireTime - (now + (60*60*24*30))));
-        }
-        // NOTE: Double.toString() would print the value with scientific notation
-        dataStringBuilder.append(String.format("&expire_time=%.0f", expireTime));
-
-        if (data != null) {
-            if(data.length() > 1000) {
-                throw new InvalidArgumentException(
-                        "Connection data must be less than 1000 characters. length: " + data.length());
-            }
-            dataStringBuilder.append("&connection_data=");
-            try {
-                dataStringBuilder.append(URLEncoder.encode(data, "UTF-8"));
-            } catch (UnsupportedEncodingException e) {
-                throw new InvalidArgumentException(
-                        "Error during URL encode of your connection data: " +  e.getMessage());
-            }
-        }
-
-
-        StringBuilder tokenStringBuilder = new StringBuilder();
-        try {
-            tokenStringBuilder.append("T1==");
-
-            StringBuilder innerBuilder = new StringBuilder();
-            innerBuilder.append("partner_id=");
-            innerBuilder.append(this.apiKey);
-
-            innerBuilder.append("&sig=");
-
-            innerBuilder.append(Crypto.signData(dataStringBuilder.toString(), this.apiSecret));
-            innerBuilder.append(":");
-            innerBuilder.append(dataStringBuilder.toString());
-
-            tokenStringBuilder.append(
-                    Base64.encodeBase64String(
-                            innerBuilder.toString().getBytes("UTF-8")
-                    )
-                            .replace("+", "-")
-                            .replace("/", "_")
-            );
+        return tokenEngine.generateToken(sessionId, tokenOptions);
+    }
 
-        } catch (SignatureException | NoSuchAlgorithmException
-                | InvalidKeyException | UnsupportedEncodingException e) {
-            throw new OpenTokException("Could not generate token, a signing error occurred.", e);
+    /**
+     * Creates a token for connecting to an OpenTok session from a compiled TokenTemplate. This is
+     * cheaper than {@link #generateToken(TokenOptions)} when many tokens share the same options.
+     *
+     * @param tokenTemplate The compiled options for the token.
+     *
+     * @return The token string.
+     */
+    public String generateToken(TokenTemplate tokenTemplate) throws InvalidArgumentException, OpenTokException {
+        if (tokenTemplate == null) {
+            throw new InvalidArgumentException("Token template cannot be null");
         }
-
-        return tokenStringBuilder.toString();
+        return tokenEngine.generateToken(sessionId, tokenTemplate.template(), System.currentTimeMillis() / 1000L);
     }
 }
@@ -0,0 +1,429 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.exception.CircuitBreakerOpenException;
+import com.opentok.exception.ConnectionFailedException;
+import com.opentok.exception.RateLimitExceededException;
+import com.opentok.exception.RequestException;
+import com.opentok.exception.RequestTimeoutException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates many sessions, a window of them at a time:
+ *
+ * <pre>
+ * new SessionCreator.Builder(opentok).concurrency(8).build()
+ *     .createSessions(propertiesList)
+ *     .handler(result -&gt; ...)
+ *     .endHandler(v -&gt; ...);
+ * </pre>
+ *
+ * At most <code>concurrency</code> {@link OpenTok#createSession(SessionProperties, long, Handler)} calls
+ * of a job are in flight at a time, so that a large job leaves the rest of the HTTP connection pool of
+ * the client to other calls. Keep it below the <code>maxPoolSize</code> of the client.
+ * <p>
+ * Results are emitted as a {@link ReadStream} of {@link SessionResult}, in the order the sessions are
+ * created. A session that cannot be created is reported as a failed result and does not stop the job.
+ * Calls that could not connect, timed out, were held back by the rate limit or circuit breaker of the
+ * client, or were answered with a 429 or 5xx status are retried up to <code>maxAttempts</code> times,
+ * after a backoff with full jitter. A call that timed out may still have created a session, which is
+ * then left unused. Calls whose response was received but could not be read are never retried, since
+ * the session was created.
+ * <p>
+ * The job honors back-pressure: while the result stream is paused, or has no handler, no more than
+ * <code>concurrency</code> results are queued before creation stops, and a source
+ * {@link ReadStream} of properties is paused in turn. The end handler is called after the last result;
+ * if the source stream fails, the exception handler is called instead, once the sessions already
+ * being created are emitted.
+ * <p>
+ * Create a SessionCreator object with the {@link Builder} class. This class is thread-safe.
+ */
+public class SessionCreator {
+
+    private final OpenTok opentok;
+    private final Vertx vertx;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long timeout;
+
+    private SessionCreator(Builder builder) {
+        this.opentok = builder.opentok;
+        this.vertx = builder.opentok.vertx;
+        this.concurrency = builder.concurrency;
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.timeout = builder.timeout;
+    }
+
+    /**
+     * Use this class to create a SessionCreator object.
+     */
+    public static class Builder {
+        private final OpenTok opentok;
+        private int concurrency = 8;
+        private int maxAttempts = 3;
+        private long initialBackoff = 200;
+        private long maxBackoff = 5000;
+        private long timeout = 0;
+
+        public Builder(OpenTok opentok) {
+            this.opentok = opentok;
+        }
+
+        /**
+         * The largest number of sessions of a job created at the same time. Defaults to 8.
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("At least one session must be created at a time. concurrency: " +
+                        concurrency);
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * The maximum number of times a session is requested, including the first one. Defaults to 3.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("The maximum number of attempts must be at least 1. maxAttempts: " +
+                        maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The longest wait, in milliseconds, before the first retry of a session, and before any later
+         * retry. The wait doubles with each attempt. Defaults to 200 milliseconds and 5 seconds.
+         */
+        public Builder backoff(long initialBackoff, long maxBackoff) {
+            if (initialBackoff < 1 || maxBackoff < initialBackoff) {
+                throw new IllegalArgumentException("The backoffs must be positive, and the maximum at least the " +
+                        "initial one. initialBackoff: " + initialBackoff + ", maxBackoff: " + maxBackoff);
+            }
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * The timeout, in milliseconds, of each attempt. 0, the default, uses the default timeout of the
+         * operation.
+         */
+        public Builder timeout(long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Builds the SessionCreator object.
+         */
+        public SessionCreator build() {
+            return new SessionCreator(this);
+        }
+    }
+
+    /**
+     * Creates a session for each of the given properties. A null element creates a session with the
+     * default properties.
+     *
+     * @return The stream of the results, one per element.
+     */
+    public ReadStream<SessionResult> createSessions(Iterable<SessionProperties> properties) {
+        Job job = new Job(properties.iterator(), null);
+        job.pump();
+        return job;
+    }
+
+    /**
+     * Creates a session for each of the properties read from a stream. A null element creates a session
+     * with the default properties.
+     *
+     * @return The stream of the results, one per element.
+     */
+    public ReadStream<SessionResult> createSessions(ReadStream<SessionProperties> properties) {
+        Job job = new Job(null, properties);
+        properties.exceptionHandler(job::sourceFailed);
+        properties.endHandler(v -> job.sourceEnded());
+        properties.handler(job::sourceItem);
+        return job;
+    }
+
+    /**
+     * Whether a failed call may be sent again. A call is only retried if it got no response or an error
+     * status: once a response was read, the session exists, even if the response could not be decoded.
+     */
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof ConnectionFailedException || cause instanceof RequestTimeoutException ||
+                cause instanceof RateLimitExceededException || cause instanceof CircuitBreakerOpenException) {
+            return true;
+        }
+        if (!(cause instanceof RequestException)) {
+            return false;
+        }
+        int statusCode = ((RequestException) cause).getStatusCode();
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private long backoff(int attempts) {
+        long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(attempts - 1, 30));
+        return 1 + ThreadLocalRandom.current().nextLong(ceiling);
+    }
+
+    private static final class Item {
+        private final int index;
+        private final SessionProperties properties;
+        private int attempts;
+
+        private Item(int index, SessionProperties properties) {
+            this.index = index;
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * The state of one job, and the stream of its results.
+     */
+    private final class Job implements ReadStream<SessionResult> {
+
+        private final Iterator<SessionProperties> iterator;
+        private final ReadStream<SessionProperties> source;
+        private final ArrayDeque<SessionProperties> pending = new ArrayDeque<>();
+        private final ArrayDeque<SessionResult> queue = new ArrayDeque<>();
+        private boolean sourcePaused;
+        private boolean inputEnded;
+        private Throwable failure;
+        private int nextIndex;
+        private int inFlight;
+
+        private Handler<SessionResult> handler;
+        private Handler<Void> endHandler;
+        private Handler<Throwable> exceptionHandler;
+        private boolean paused;
+        private boolean emitting;
+        private boolean done;
+
+        private Job(Iterator<SessionProperties> iterator, ReadStream<SessionProperties> source) {
+            this.iterator = iterator;
+            this.source = source;
+        }
+
+        @Override
+        public Job exceptionHandler(Handler<Throwable> handler) {
+            synchronized (this) {
+                this.exceptionHandler = handler;
+            }
+            emit();
+            return this;
+        }
+
+        @Override
+        public Job handler(Handler<SessionResult> handler) {
+            synchronized (this) {
+                this.handler = handler;
+            }
+            emit();
+            return this;
+        }
+
+        @Override
+        public Job pause() {
+            synchronized (this) {
+                this.paused = true;
+            }
+            return this;
+        }
+
+        @Override
+        public Job resume() {
+            synchronized (this) {
+                this.paused = false;
+            }
+            emit();
+            return this;
+        }
+
+        @Override
+        public Job endHandler(Handler<Void> endHandler) {
+            synchronized (this) {
+                this.endHandler = endHandler;
+            }
+            emit();
+            return this;
+        }
+
+        private void sourceItem(SessionProperties properties) {
+            synchronized (this) {
+                if (inputEnded) {
+                    return;
+                }
+                pending.add(properties != null ? properties : new SessionProperties.Builder().build());
+            }
+            pump();
+        }
+
+        private void sourceEnded() {
+            synchronized (this) {
+                inputEnded = true;
+            }
+            emit();
+        }
+
+        private void sourceFailed(Throwable cause) {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                failure = cause;
+                inputEnded = true;
+                pending.clear();
+            }
+            emit();
+        }
+
+        /**
+         * Starts creating sessions while the window and the result queue have room, and pauses or resumes
+         * the source stream.
+         */
+        private void pump() {
+            List<Item> started = new ArrayList<>();
+            Boolean pauseSource = null;
+            boolean exhausted = false;
+            synchronized (this) {
+                while (failure == null && inFlight < concurrency && queue.size() < concurrency) {
+                    SessionProperties properties;
+                    if (iterator != null) {
+                        if (!iterator.hasNext()) {
+                            exhausted = !inputEnded;
+                            inputEnded = true;
+                            break;
+                        }
+                        properties = iterator.next();
+                        if (properties == null) {
+                            properties = new SessionProperties.Builder().build();
+                        }
+                    } else if (!pending.isEmpty()) {
+                        properties = pending.poll();
+                    } else {
+                        break;
+                    }
+                    inFlight++;
+                    started.add(new Item(nextIndex++, properties));
+                }
+                if (source != null && !inputEnded) {
+                    if (!sourcePaused && pending.size() >= concurrency) {
+                        sourcePaused = true;
+                        pauseSource = true;
+                    } else if (sourcePaused && pending.size() < concurrency / 2 + 1) {
+                        sourcePaused = false;
+                        pauseSource = false;
+                    }
+                }
+            }
+            if (pauseSource != null) {
+                if (pauseSource) {
+                    source.pause();
+                } else {
+                    source.resume();
+                }
+            }
+            for (Item item : started) {
+                attempt(item);
+            }
+            if (exhausted) {
+                emit();
+            }
+        }
+
+        private void attempt(Item item) {
+            item.attempts++;
+            opentok.createSession(item.properties, timeout, result -> completed(item, result));
+        }
+
+        private void completed(Item item, AsyncResult<Session> result) {
+            if (result.failed() && item.attempts < maxAttempts && isRetryable(result.cause())) {
+                vertx.setTimer(backoff(item.attempts), id -> attempt(item));
+                return;
+            }
+            SessionResult sessionResult = result.succeeded() ?
+                    new SessionResult(item.index, item.properties, result.result(), null, item.attempts) :
+                    new SessionResult(item.index, item.properties, null, result.cause(), item.attempts);
+            synchronized (this) {
+                inFlight--;
+                queue.add(sessionResult);
+            }
+            emit();
+            pump();
+        }
+
+        /**
+         * Delivers queued results, then the end or the failure, while the stream is flowing. Only one
+         * thread emits at a time; others leave their work to it.
+         */
+        private void emit() {
+            synchronized (this) {
+                if (emitting) {
+                    return;
+                }
+                emitting = true;
+            }
+            boolean delivered = false;
+            while (true) {
+                Handler<SessionResult> itemHandler;
+                SessionResult result;
+                Handler<Void> end = null;
+                Handler<Throwable> error = null;
+                Throwable cause = null;
+                synchronized (this) {
+                    itemHandler = handler;
+                    result = paused || itemHandler == null ? null : queue.poll();
+                    if (result == null && !done && inputEnded && inFlight == 0 && queue.isEmpty()) {
+                        if (failure != null && exceptionHandler != null) {
+                            done = true;
+                            error = exceptionHandler;
+                            cause = failure;
+                        } else if (failure == null && endHandler != null) {
+                            done = true;
+                            end = endHandler;
+                        }
+                    }
+                    if (result == null && end == null && error == null) {
+                        emitting = false;
+                        break;
+                    }
+                }
+                if (result != null) {
+                    delivered = true;
+                    itemHandler.handle(result);
+                } else if (error != null) {
+                    error.handle(cause);
+                } else {
+                    end.handle(null);
+                }
+            }
+            if (delivered) {
+                pump();
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Represents a session monitoring callback: a connection or a stream created or destroyed in an
+ * OpenTok session.
+ *
+ * @see SessionEventHandler
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SessionEvent {
+
+    /**
+     * Defines values returned by the {@link SessionEvent#getType} method.
+     */
+    public enum Type {
+        /**
+         * A client connected to the session.
+         */
+        CONNECTION_CREATED("connectionCreated"),
+        /**
+         * A client disconnected from the session.
+         */
+        CONNECTION_DESTROYED("connectionDestroyed"),
+        /**
+         * A client started publishing a stream to the session.
+         */
+        STREAM_CREATED("streamCreated"),
+        /**
+         * A stream stopped being published to the session.
+         */
+        STREAM_DESTROYED("streamDestroyed");
+
+        private final String event;
+
+        Type(String event) {
+            this.event = event;
+        }
+
+        /**
+         * Returns the type with the given <code>event</code> name of a callback, or null if there is none.
+         */
+        public static Type fromEvent(String event) {
+            for (Type type : values()) {
+                if (type.event.equals(event)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        @JsonValue public String toString() {
+            return event;
+        }
+    }
+
+    @JsonProperty private String sessionId;
+    @JsonProperty private String projectId;
+    @JsonProperty private Type type;
+    @JsonProperty private long timestamp;
+    @JsonProperty private String reason;
+    @JsonProperty private String connectionId;
+    @JsonProperty private long connectionCreatedAt;
+    @JsonProperty private String connectionData;
+    @JsonProperty private String streamId;
+    @JsonProperty private long streamCreatedAt;
+    @JsonProperty private String streamName;
+    @JsonProperty private String videoType;
+
+    protected SessionEvent() {
+    }
+
+    @JsonCreator
+    public static SessionEvent makeSessionEvent() {
+        return new SessionEvent();
+    }
+
+    SessionEvent(String sessionId, String projectId, Type type, long timestamp, String reason,
+                 String connectionId, long connectionCreatedAt, String connectionData,
+                 String streamId, long streamCreatedAt, String streamName, String videoType) {
+        this.sessionId = sessionId;
+        this.projectId = projectId;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.reason = reason;
+        this.connectionId = connectionId;
+        this.connectionCreatedAt = connectionCreatedAt;
+        this.connectionData = connectionData;
+        this.streamId = streamId;
+        this.streamCreatedAt = streamCreatedAt;
+        this.streamName = streamName;
+        this.videoType = videoType;
+    }
+
+    /**
+     * The session ID of the session the event occurred in.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * The API key of the project of the session.
+     */
+    public String getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * The type of the event, as defined by the {@link com.opentok.SessionEvent.Type} enum.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The time at which the event occurred, in milliseconds since the Unix epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Why a connection or stream was destroyed, for example <code>clientDisconnected</code>; null for
+     * created connections and streams.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * The ID of the connection, or of the connection publishing the stream.
+     */
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    /**
+     * The time at which the connection was created, in milliseconds since the Unix epoch.
+     */
+    public long getConnectionCreatedAt() {
+        return connectionCreatedAt;
+    }
+
+    /**
+     * The connection data of the token the client connected with.
+     */
+    public String getConnectionData() {
+        return connectionData;
+    }
+
+    /**
+     * The ID of the stream, or null for connection events.
+     */
+    public String getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * The time at which the stream was created, in milliseconds since the Unix epoch, or 0 for
+     * connection events.
+     */
+    public long getStreamCreatedAt() {
+        return streamCreatedAt;
+    }
+
+    /**
+     * The name of the stream, or null if it has none.
+     */
+    public String getStreamName() {
+        return streamName;
+    }
+
+    /**
+     * The video type of the stream, <code>camera</code> or <code>screen</code>, or null if it has none.
+     */
+    public String getVideoType() {
+        return videoType;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionEvent{type=" + type + ", sessionId=" + sessionId + ", connectionId=" + connectionId +
+                ", streamId=" + streamId + ", timestamp=" + timestamp + '}';
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.util.SessionEventBatchCodec;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Receives the session monitoring callbacks OpenTok sends to the callback URL of a project, as a
+ * Vert.x {@link HttpServerRequest} handler:
+ *
+ * <pre>
+ * SessionEventHandler events = new SessionEventHandler.Builder(vertx, apiKey).address("sessions").build();
+ * vertx.createHttpServer().requestHandler(events).listen(8080);
+ * ...
+ * int viewers = events.getPresence().getConnectionCount(sessionId);
+ * </pre>
+ *
+ * Each callback body is read into a {@link SessionEvent} with the Jackson streaming parser, straight
+ * from the bytes it was received in. Callbacks that are not valid JSON, are not connection or stream
+ * events, miss their IDs, or are for another project are answered with a 400 status and dropped.
+ * <p>
+ * Valid callbacks are answered with a 200 status, recorded in the {@link SessionPresence} of the
+ * handler and passed to the registered handlers. If an event bus address is set, events are published
+ * on it in batches, as a <code>List&lt;SessionEvent&gt;</code> sent with
+ * {@link SessionEventBatchCodec}: a batch is published once it holds <code>maxBatchSize</code> events,
+ * or <code>maxBatchDelay</code> milliseconds after its first event.
+ * <p>
+ * This class is thread-safe; one instance can serve several event loops.
+ */
+public class SessionEventHandler implements Handler<HttpServerRequest> {
+
+    private final String projectId;
+    private final Vertx vertx;
+    private final EventBus eventBus;
+    private final String address;
+    private final DeliveryOptions deliveryOptions = new DeliveryOptions().setCodecName(SessionEventBatchCodec.NAME);
+    private final int maxBodySize;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
+    private final SessionPresence presence;
+    private final List<Handler<SessionEvent>> handlers = new CopyOnWriteArrayList<>();
+
+    private List<SessionEvent> batch;
+    private long batchTimerId = -1;
+
+    private SessionEventHandler(Builder builder) {
+        this.projectId = Integer.toString(builder.apiKey);
+        this.vertx = builder.vertx;
+        this.eventBus = builder.vertx.eventBus();
+        this.address = builder.address;
+        this.maxBodySize = builder.maxBodySize;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchDelay = builder.maxBatchDelay;
+        this.presence = builder.presence != null ? builder.presence : new SessionPresence(builder.vertx);
+        if (address != null) {
+            SessionEventBatchCodec.register(eventBus);
+        }
+    }
+
+    /**
+     * Use this class to create a SessionEventHandler object.
+     */
+    public static class Builder {
+        private final Vertx vertx;
+        private final int apiKey;
+        private String address;
+        private int maxBodySize = 64 * 1024;
+        private int maxBatchSize = 256;
+        private long maxBatchDelay = 10;
+        private SessionPresence presence;
+
+        /**
+         * @param apiKey The API key of the project; callbacks for other projects are rejected.
+         */
+        public Builder(Vertx vertx, int apiKey) {
+            this.vertx = vertx;
+            this.apiKey = apiKey;
+        }
+
+        /**
+         * The event bus address batches of events are published on. By default, events are only passed
+         * to the registered handlers.
+         */
+        public Builder address(String address) {
+            this.address = address;
+            return this;
+        }
+
+        /**
+         * The largest number of events published in one batch, and the longest time, in milliseconds, an
+         * event waits for its batch to be published. Defaults to 256 events and 10 milliseconds.
+         */
+        public Builder batching(int maxBatchSize, long maxBatchDelay) {
+            if (maxBatchSize < 1 || maxBatchDelay < 1) {
+                throw new IllegalArgumentException("The batch size and delay must be positive. maxBatchSize: " +
+                        maxBatchSize + ", maxBatchDelay: " + maxBatchDelay);
+            }
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelay = maxBatchDelay;
+            return this;
+        }
+
+        /**
+         * The largest callback body, in bytes, that is read. Larger callbacks are answered with a 413
+         * status. Defaults to 64 KiB.
+         */
+        public Builder maxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * The registry events are recorded in, so that several handlers can share one. By default, each
+         * handler has its own.
+         */
+        public Builder presence(SessionPresence presence) {
+            this.presence = presence;
+            return this;
+        }
+
+        /**
+         * Builds the SessionEventHandler object.
+         */
+        public SessionEventHandler build() {
+            return new SessionEventHandler(this);
+        }
+    }
+
+    /**
+     * Registers a handler called with each event.
+     */
+    public SessionEventHandler handler(Handler<SessionEvent> handler) {
+        handlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Returns the registry of the live connections and streams of the sessions.
+     */
+    public SessionPresence getPresence() {
+        return presence;
+    }
+
+    @Override
+    public void handle(HttpServerRequest request) {
+        if (request.method() != HttpMethod.POST) {
+            request.response().setStatusCode(405).end();
+            return;
+        }
+        if (CallbackBody.declaredLength(request) > maxBodySize) {
+            request.response().setStatusCode(413).setStatusMessage("Payload Too Large").end();
+            return;
+        }
+
+        CallbackBody body = new CallbackBody(maxBodySize);
+        request.handler(body::append);
+        request.endHandler(v -> {
+            if (body.isTooLarge()) {
+                request.response().setStatusCode(413).setStatusMessage("Payload Too Large").end();
+                return;
+            }
+            SessionEvent event = decode(body.get());
+            if (event == null) {
+                request.response().setStatusCode(400).end();
+                return;
+            }
+            request.response().end();
+            presence.update(event);
+            for (Handler<SessionEvent> handler : handlers) {
+                handler.handle(event);
+            }
+            if (address != null) {
+                enqueue(event);
+            }
+        });
+    }
+
+    private SessionEvent decode(Buffer body) {
+        if (body == null) {
+            return null;
+        }
+        SessionEvent event;
+        try {
+            event = SessionEventParser.parse(body);
+        } catch (Exception e) {
+            return null;
+        }
+        if (event.getType() == null || event.getSessionId() == null || !projectId.equals(event.getProjectId())) {
+            return null;
+        }
+        switch (event.getType()) {
+            case CONNECTION_CREATED:
+            case CONNECTION_DESTROYED:
+                return event.getConnectionId() != null ? event : null;
+            default:
+                return event.getStreamId() != null ? event : null;
+        }
+    }
+
+    private void enqueue(SessionEvent event) {
+        List<SessionEvent> full = null;
+        synchronized (this) {
+            if (batch == null) {
+                batch = new ArrayList<>(maxBatchSize);
+            }
+            batch.add(event);
+            if (batch.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (batchTimerId == -1) {
+                batchTimerId = vertx.setTimer(maxBatchDelay, id -> flush());
+            }
+        }
+        if (full != null) {
+            eventBus.publish(address, full, deliveryOptions);
+        }
+    }
+
+    private void flush() {
+        List<SessionEvent> events;
+        synchronized (this) {
+            batchTimerId = -1;
+            events = takeBatch();
+        }
+        if (events != null) {
+            eventBus.publish(address, events, deliveryOptions);
+        }
+    }
+
+    private List<SessionEvent> takeBatch() {
+        List<SessionEvent> events = batch;
+        batch = null;
+        if (batchTimerId != -1) {
+            vertx.cancelTimer(batchTimerId);
+            batchTimerId = -1;
+        }
+        return events;
+    }
+}
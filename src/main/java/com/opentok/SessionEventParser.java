@@ -0,0 +1,173 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+
+/**
+ * Reads session monitoring callbacks with the Jackson streaming parser, straight from the bytes of
+ * the request body. Only the fields of {@link SessionEvent} are read; everything else is skipped
+ * without being decoded.
+ */
+final class SessionEventParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private SessionEventParser() {
+    }
+
+    /**
+     * Reads a callback body.
+     *
+     * @throws IOException If the body is not a JSON object.
+     */
+    static SessionEvent parse(Buffer body) throws IOException {
+        ByteBuf bytes = body.getByteBuf();
+        byte[] array;
+        int offset;
+        if (bytes.hasArray()) {
+            array = bytes.array();
+            offset = bytes.arrayOffset() + bytes.readerIndex();
+        } else {
+            array = body.getBytes();
+            offset = 0;
+        }
+        try (JsonParser parser = FACTORY.createParser(array, offset, bytes.readableBytes())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The callback is not a JSON object");
+            }
+            Fields fields = new Fields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "sessionId":
+                        fields.sessionId = text(parser, value);
+                        break;
+                    case "projectId":
+                        fields.projectId = text(parser, value);
+                        break;
+                    case "event":
+                        fields.type = SessionEvent.Type.fromEvent(text(parser, value));
+                        break;
+                    case "timestamp":
+                        fields.timestamp = number(parser, value);
+                        break;
+                    case "reason":
+                        fields.reason = text(parser, value);
+                        break;
+                    case "connection":
+                        readConnection(parser, value, fields);
+                        break;
+                    case "stream":
+                        readStream(parser, value, fields);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            return new SessionEvent(fields.sessionId, fields.projectId, fields.type, fields.timestamp,
+                    fields.reason, fields.connectionId, fields.connectionCreatedAt, fields.connectionData,
+                    fields.streamId, fields.streamCreatedAt, fields.streamName, fields.videoType);
+        }
+    }
+
+    private static void readConnection(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "id":
+                    fields.connectionId = text(parser, token);
+                    break;
+                case "createdAt":
+                    fields.connectionCreatedAt = number(parser, token);
+                    break;
+                case "data":
+                    fields.connectionData = text(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    private static void readStream(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "id":
+                    fields.streamId = text(parser, token);
+                    break;
+                case "createdAt":
+                    fields.streamCreatedAt = number(parser, token);
+                    break;
+                case "name":
+                    fields.streamName = text(parser, token);
+                    break;
+                case "videoType":
+                    fields.videoType = text(parser, token);
+                    break;
+                case "connection":
+                    readConnection(parser, token, fields);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING || token.isNumeric()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long number(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return parser.getLongValue();
+        }
+        parser.skipChildren();
+        return 0;
+    }
+
+    private static final class Fields {
+        private String sessionId;
+        private String projectId;
+        private SessionEvent.Type type;
+        private long timestamp;
+        private String reason;
+        private String connectionId;
+        private long connectionCreatedAt;
+        private String connectionData;
+        private String streamId;
+        private long streamCreatedAt;
+        private String streamName;
+        private String videoType;
+    }
+}
@@ -0,0 +1,458 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.exception.OpenTokException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps sessions created ahead of time, so that a session can be handed out without a request to the
+ * OpenTok API:
+ *
+ * <pre>
+ * SessionPool pool = new SessionPool.Builder(opentok).watermarks(5, 20).build();
+ * pool.warm(properties);
+ * ...
+ * pool.take(properties, result -&gt; ...);
+ * </pre>
+ *
+ * Sessions are pooled separately for each distinct {@link SessionProperties}, once the pool of those
+ * properties is {@link #warm}ed. Sessions with other properties are never pooled: taking one creates
+ * it directly, and polling for one returns null. Once fewer than
+ * <code>lowWatermark</code> sessions of warmed properties are pooled or being created, the pool is
+ * refilled in the background up to <code>highWatermark</code>, with at most <code>maxCreating</code>
+ * {@link OpenTok#createSession(SessionProperties, long, Handler)} calls in flight per properties. A
+ * failed refill is retried after <code>retryDelay</code> milliseconds.
+ * <p>
+ * Sessions are handed out oldest first. Sessions pooled for longer than <code>maxAge</code>
+ * milliseconds are dropped instead, and replaced while the pool is below its low watermark. When no
+ * session is pooled, {@link #take} creates one directly.
+ * <p>
+ * This class is thread-safe.
+ */
+public class SessionPool {
+
+    private final OpenTok opentok;
+    private final Vertx vertx;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final int maxCreating;
+    private final long maxAge;
+    private final long createTimeout;
+    private final long retryDelay;
+
+    private final Map<SessionProperties, Pool> pools = new HashMap<>();
+    private long sweepTimerId = -1;
+    private boolean closed;
+
+    private long hits;
+    private long misses;
+    private long created;
+    private long failed;
+    private long expired;
+
+    private SessionPool(Builder builder) {
+        this.opentok = builder.opentok;
+        this.vertx = builder.opentok.vertx;
+        this.lowWatermark = builder.lowWatermark;
+        this.highWatermark = builder.highWatermark;
+        this.maxCreating = builder.maxCreating;
+        this.maxAge = builder.maxAge;
+        this.createTimeout = builder.createTimeout;
+        this.retryDelay = builder.retryDelay;
+    }
+
+    /**
+     * Use this class to create a SessionPool object.
+     */
+    public static class Builder {
+        private final OpenTok opentok;
+        private int lowWatermark = 2;
+        private int highWatermark = 10;
+        private int maxCreating = 4;
+        private long maxAge = 0;
+        private long createTimeout = 0;
+        private long retryDelay = TimeUnit.SECONDS.toMillis(1);
+
+        public Builder(OpenTok opentok) {
+            this.opentok = opentok;
+        }
+
+        /**
+         * The number of pooled sessions of some properties below which the pool is refilled, and the
+         * number it is refilled up to. Defaults to 2 and 10.
+         */
+        public Builder watermarks(int lowWatermark, int highWatermark) {
+            if (lowWatermark < 1 || highWatermark < lowWatermark) {
+                throw new IllegalArgumentException("The watermarks must be positive, and the high watermark at least " +
+                        "the low watermark. lowWatermark: " + lowWatermark + ", highWatermark: " + highWatermark);
+            }
+            this.lowWatermark = lowWatermark;
+            this.highWatermark = highWatermark;
+            return this;
+        }
+
+        /**
+         * The largest number of sessions of some properties created at the same time to refill the pool.
+         * Defaults to 4.
+         */
+        public Builder maxCreating(int maxCreating) {
+            if (maxCreating < 1) {
+                throw new IllegalArgumentException("At least one session must be created at a time. maxCreating: " +
+                        maxCreating);
+            }
+            this.maxCreating = maxCreating;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, a session is kept in the pool before it is dropped. 0, the default,
+         * keeps sessions until they are taken.
+         */
+        public Builder maxAge(long maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * The timeout, in milliseconds, of the calls that create sessions. 0, the default, uses the
+         * default timeout of the operation.
+         */
+        public Builder createTimeout(long createTimeout) {
+            this.createTimeout = createTimeout;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, to wait before refilling the pool again after a session could not be
+         * created. Defaults to 1 second.
+         */
+        public Builder retryDelay(long retryDelay) {
+            this.retryDelay = retryDelay;
+            return this;
+        }
+
+        /**
+         * Builds the SessionPool object.
+         */
+        public SessionPool build() {
+            return new SessionPool(this);
+        }
+    }
+
+    /**
+     * Fills the pool of sessions with the given properties up to the high watermark.
+     *
+     * @param properties The properties of the sessions, or null for the default properties.
+     */
+    public void warm(SessionProperties properties) {
+        SessionProperties key = key(properties);
+        int count;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Pool pool = pool(key);
+            pool.filling = true;
+            count = toCreate(pool);
+        }
+        create(key, count);
+    }
+
+    /**
+     * Stops refilling the pool of sessions with the given properties and drops its sessions.
+     *
+     * @param properties The properties of the sessions, or null for the default properties.
+     */
+    public synchronized void cool(SessionProperties properties) {
+        Pool pool = pools.remove(key(properties));
+        if (pool != null && pool.retryTimerId != -1) {
+            vertx.cancelTimer(pool.retryTimerId);
+        }
+    }
+
+    /**
+     * Takes a pooled session with the given properties, or returns null if there is none. Never makes a
+     * request to the OpenTok API before returning. Only refills the pool if it was warmed.
+     *
+     * @param properties The properties of the session, or null for the default properties.
+     */
+    public Session poll(SessionProperties properties) {
+        SessionProperties key = key(properties);
+        Session session;
+        int count;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            Pool pool = pools.get(key);
+            if (pool == null) {
+                misses++;
+                return null;
+            }
+            dropExpired(pool, System.currentTimeMillis());
+            Pooled pooled = pool.sessions.pollFirst();
+            session = pooled != null ? pooled.session : null;
+            if (session != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            count = refill(pool);
+        }
+        create(key, count);
+        return session;
+    }
+
+    /**
+     * Takes a pooled session with the given properties, or creates one if there is none. A session
+     * created this way is not pooled.
+     *
+     * @param properties The properties of the session, or null for the default properties.
+     * Calls handler with: The {@link Session}.
+     *
+     * @see OpenTok#createSession(SessionProperties, Handler)
+     */
+    public void take(SessionProperties properties, Handler<AsyncResult<Session>> handler) {
+        Session session = poll(properties);
+        if (session != null) {
+            handler.handle(Future.succeededFuture(session));
+            return;
+        }
+        boolean rejected;
+        synchronized (this) {
+            rejected = closed;
+        }
+        if (rejected) {
+            handler.handle(Future.failedFuture(new OpenTokException("The session pool was closed.")));
+        } else {
+            opentok.createSession(key(properties), createTimeout, handler);
+        }
+    }
+
+    /**
+     * Returns the number of pooled sessions with the given properties.
+     *
+     * @param properties The properties of the sessions, or null for the default properties.
+     */
+    public synchronized int size(SessionProperties properties) {
+        Pool pool = pools.get(key(properties));
+        return pool != null ? pool.sessions.size() : 0;
+    }
+
+    /**
+     * Returns the number of pooled sessions.
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Pool pool : pools.values()) {
+            size += pool.sessions.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of sessions taken from the pool.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of sessions asked for while none with the requested properties was pooled.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of sessions created to refill the pool.
+     */
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the number of sessions that could not be created to refill the pool.
+     */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the number of sessions dropped for being older than <code>maxAge</code>.
+     */
+    public synchronized long getExpired() {
+        return expired;
+    }
+
+    /**
+     * Drops all pooled sessions and stops refilling the pool. Sessions being created are dropped when
+     * they are.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Pool pool : pools.values()) {
+            if (pool.retryTimerId != -1) {
+                vertx.cancelTimer(pool.retryTimerId);
+            }
+        }
+        pools.clear();
+        if (sweepTimerId != -1) {
+            vertx.cancelTimer(sweepTimerId);
+            sweepTimerId = -1;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SessionPool{size=" + size() + ", hits=" + hits + ", misses=" + misses + ", created=" + created +
+                ", failed=" + failed + ", expired=" + expired + '}';
+    }
+
+    private static SessionProperties key(SessionProperties properties) {
+        return properties != null ? properties : new SessionProperties.Builder().build();
+    }
+
+    private Pool pool(SessionProperties key) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            pool = new Pool();
+            pools.put(key, pool);
+            if (maxAge > 0 && sweepTimerId == -1) {
+                sweepTimerId = vertx.setPeriodic(Math.max(1, maxAge / 4), id -> sweep());
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Starts filling the pool once it is below the low watermark, and returns the number of sessions to
+     * create now.
+     */
+    private int refill(Pool pool) {
+        if (pool.sessions.size() + pool.creating < lowWatermark) {
+            pool.filling = true;
+        }
+        return toCreate(pool);
+    }
+
+    private int toCreate(Pool pool) {
+        if (!pool.filling || pool.retryTimerId != -1) {
+            return 0;
+        }
+        int missing = highWatermark - pool.sessions.size() - pool.creating;
+        if (missing <= 0) {
+            pool.filling = false;
+            return 0;
+        }
+        int count = Math.min(missing, maxCreating - pool.creating);
+        pool.creating += count;
+        return count;
+    }
+
+    private void create(SessionProperties key, int count) {
+        for (int i = 0; i < count; i++) {
+            opentok.createSession(key, createTimeout, result -> created(key, result));
+        }
+    }
+
+    private void created(SessionProperties key, AsyncResult<Session> result) {
+        int count;
+        synchronized (this) {
+            Pool pool = pools.get(key);
+            if (closed || pool == null) {
+                return;
+            }
+            pool.creating--;
+            if (result.succeeded()) {
+                created++;
+                pool.sessions.addLast(new Pooled(result.result(), System.currentTimeMillis()));
+                count = toCreate(pool);
+            } else {
+                failed++;
+                if (pool.retryTimerId == -1) {
+                    pool.retryTimerId = vertx.setTimer(Math.max(1, retryDelay), id -> retry(key));
+                }
+                count = 0;
+            }
+        }
+        create(key, count);
+    }
+
+    private void retry(SessionProperties key) {
+        int count;
+        synchronized (this) {
+            Pool pool = pools.get(key);
+            if (closed || pool == null) {
+                return;
+            }
+            pool.retryTimerId = -1;
+            count = refill(pool);
+        }
+        create(key, count);
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Map<SessionProperties, Integer> counts = new HashMap<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (Map.Entry<SessionProperties, Pool> entry : pools.entrySet()) {
+                Pool pool = entry.getValue();
+                dropExpired(pool, now);
+                int count = refill(pool);
+                if (count > 0) {
+                    counts.put(entry.getKey(), count);
+                }
+            }
+        }
+        for (Map.Entry<SessionProperties, Integer> entry : counts.entrySet()) {
+            create(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void dropExpired(Pool pool, long now) {
+        if (maxAge <= 0) {
+            return;
+        }
+        Iterator<Pooled> iterator = pool.sessions.iterator();
+        while (iterator.hasNext() && now - iterator.next().pooledAt >= maxAge) {
+            iterator.remove();
+            expired++;
+        }
+    }
+
+    private static final class Pool {
+        private final ArrayDeque<Pooled> sessions = new ArrayDeque<>();
+        private int creating;
+        private boolean filling;
+        private long retryTimerId = -1;
+    }
+
+    private static final class Pooled {
+        private final Session session;
+        private final long pooledAt;
+
+        private Pooled(Session session, long pooledAt) {
+            this.session = session;
+            this.pooledAt = pooledAt;
+        }
+    }
+}
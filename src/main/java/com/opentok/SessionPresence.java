@@ -0,0 +1,213 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.Vertx;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the live connections and streams of sessions from their {@link SessionEvent}s.
+ * <p>
+ * Connections and streams are tracked by ID, so a callback that OpenTok sends again is not counted
+ * twice. Reads never block. Updates are atomic per session and updates of different sessions do not
+ * contend; a session is forgotten once it has no connections and no streams left.
+ * <p>
+ * Only the events received since the registry was created are known: connections created before
+ * then are not counted.
+ * <p>
+ * Callbacks may arrive out of order. A destroyed event received for a connection or stream that is not
+ * known is remembered for <code>tombstoneTtl</code> milliseconds, and a created event for the same ID
+ * received within that time is ignored. A created event that arrives later than that after its
+ * destroyed event is counted, and stays counted. Expired tombstones are dropped by a periodic timer,
+ * which {@link #close} cancels.
+ */
+public class SessionPresence {
+
+    private final ConcurrentHashMap<String, Presence> sessions = new ConcurrentHashMap<>();
+    private final Vertx vertx;
+    private final long tombstoneTtl;
+    private final long sweepTimerId;
+
+    /**
+     * Creates a registry that remembers early destroyed events for 60 seconds.
+     */
+    public SessionPresence(Vertx vertx) {
+        this(vertx, TimeUnit.SECONDS.toMillis(60));
+    }
+
+    /**
+     * Creates a registry.
+     *
+     * @param tombstoneTtl How long, in milliseconds, a destroyed event received before its created event
+     * is remembered.
+     */
+    public SessionPresence(Vertx vertx, long tombstoneTtl) {
+        if (tombstoneTtl < 0) {
+            throw new IllegalArgumentException("The tombstone TTL must not be negative. tombstoneTtl: " +
+                    tombstoneTtl);
+        }
+        this.vertx = vertx;
+        this.tombstoneTtl = tombstoneTtl;
+        this.sweepTimerId = tombstoneTtl > 0 ? vertx.setPeriodic(tombstoneTtl, id -> sweep()) : -1;
+    }
+
+    /**
+     * Records an event.
+     */
+    public void update(SessionEvent event) {
+        String sessionId = event.getSessionId();
+        long now = System.currentTimeMillis();
+        switch (event.getType()) {
+            case CONNECTION_CREATED:
+                sessions.compute(sessionId, (id, presence) -> {
+                    Presence p = presence != null ? presence : new Presence();
+                    p.created(p.connections, p.destroyedConnections, event.getConnectionId(), now, tombstoneTtl);
+                    return p.isEmpty() ? null : p;
+                });
+                break;
+            case STREAM_CREATED:
+                sessions.compute(sessionId, (id, presence) -> {
+                    Presence p = presence != null ? presence : new Presence();
+                    p.created(p.streams, p.destroyedStreams, event.getStreamId(), now, tombstoneTtl);
+                    return p.isEmpty() ? null : p;
+                });
+                break;
+            case CONNECTION_DESTROYED:
+                sessions.compute(sessionId, (id, presence) -> {
+                    Presence p = presence != null ? presence : new Presence();
+                    p.destroyed(p.connections, p.destroyedConnections, event.getConnectionId(), now, tombstoneTtl);
+                    return p.isEmpty() ? null : p;
+                });
+                break;
+            case STREAM_DESTROYED:
+                sessions.compute(sessionId, (id, presence) -> {
+                    Presence p = presence != null ? presence : new Presence();
+                    p.destroyed(p.streams, p.destroyedStreams, event.getStreamId(), now, tombstoneTtl);
+                    return p.isEmpty() ? null : p;
+                });
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the number of live connections of a session.
+     */
+    public int getConnectionCount(String sessionId) {
+        Presence presence = sessions.get(sessionId);
+        return presence != null ? presence.connections.size() : 0;
+    }
+
+    /**
+     * Returns the number of live streams of a session.
+     */
+    public int getStreamCount(String sessionId) {
+        Presence presence = sessions.get(sessionId);
+        return presence != null ? presence.streams.size() : 0;
+    }
+
+    /**
+     * Returns a copy of the IDs of the live connections of a session.
+     */
+    public Set<String> getConnectionIds(String sessionId) {
+        Presence presence = sessions.get(sessionId);
+        return presence != null ? Collections.unmodifiableSet(new HashSet<>(presence.connections)) :
+                Collections.emptySet();
+    }
+
+    /**
+     * Returns the IDs of the sessions with live connections or streams.
+     */
+    public Set<String> getSessionIds() {
+        Set<String> sessionIds = new HashSet<>();
+        for (Map.Entry<String, Presence> entry : sessions.entrySet()) {
+            if (entry.getValue().isLive()) {
+                sessionIds.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(sessionIds);
+    }
+
+    /**
+     * Stops dropping expired tombstones.
+     */
+    public void close() {
+        if (sweepTimerId != -1) {
+            vertx.cancelTimer(sweepTimerId);
+        }
+    }
+
+    /**
+     * Drops the expired tombstones of all sessions, and forgets the sessions left empty.
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (String sessionId : sessions.keySet()) {
+            sessions.computeIfPresent(sessionId, (id, presence) -> {
+                presence.expire(now, tombstoneTtl);
+                return presence.isEmpty() ? null : presence;
+            });
+        }
+    }
+
+    /**
+     * The connections and streams of a session. The tombstones are only read and written while the
+     * session is being computed.
+     */
+    private static final class Presence {
+        private final Set<String> connections = ConcurrentHashMap.newKeySet();
+        private final Set<String> streams = ConcurrentHashMap.newKeySet();
+        private final Map<String, Long> destroyedConnections = new HashMap<>();
+        private final Map<String, Long> destroyedStreams = new HashMap<>();
+
+        private void created(Set<String> live, Map<String, Long> destroyed, String id, long now, long ttl) {
+            expire(now, ttl);
+            if (destroyed.remove(id) == null) {
+                live.add(id);
+            }
+        }
+
+        private void destroyed(Set<String> live, Map<String, Long> destroyed, String id, long now, long ttl) {
+            expire(now, ttl);
+            if (!live.remove(id) && ttl > 0) {
+                destroyed.put(id, now);
+            }
+        }
+
+        private void expire(long now, long ttl) {
+            expire(destroyedConnections, now, ttl);
+            expire(destroyedStreams, now, ttl);
+        }
+
+        private static void expire(Map<String, Long> destroyed, long now, long ttl) {
+            Iterator<Long> iterator = destroyed.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next() >= ttl) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        private boolean isLive() {
+            return !connections.isEmpty() || !streams.isEmpty();
+        }
+
+        private boolean isEmpty() {
+            return !isLive() && destroyedConnections.isEmpty() && destroyedStreams.isEmpty();
+        }
+    }
+}
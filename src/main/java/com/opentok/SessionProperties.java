@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -181,4 +182,19 @@ public class SessionProperties {
         return params;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SessionProperties that = (SessionProperties) o;
+        return Objects.equals(location, that.location) &&
+                mediaMode == that.mediaMode &&
+                archiveMode == that.archiveMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(location, mediaMode, archiveMode);
+    }
+
 };
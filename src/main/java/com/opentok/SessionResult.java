@@ -0,0 +1,77 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+/**
+ * The outcome of creating one session of a {@link SessionCreator} job: either the created
+ * {@link Session}, or the cause of the last failed attempt.
+ */
+public class SessionResult {
+
+    private final int index;
+    private final SessionProperties properties;
+    private final Session session;
+    private final Throwable cause;
+    private final int attempts;
+
+    SessionResult(int index, SessionProperties properties, Session session, Throwable cause, int attempts) {
+        this.index = index;
+        this.properties = properties;
+        this.session = session;
+        this.cause = cause;
+        this.attempts = attempts;
+    }
+
+    /**
+     * The position, starting at 0, of the session properties among those passed to the job.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * The properties the session was created with, as passed to the job.
+     */
+    public SessionProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Whether the session was created.
+     */
+    public boolean succeeded() {
+        return session != null;
+    }
+
+    /**
+     * The created session, or null if it could not be created.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Why the session could not be created, or null if it was.
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    /**
+     * The number of times the session was requested from the OpenTok API.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionResult{index=" + index + ", " + (session != null ? "sessionId=" + session.getSessionId() :
+                "cause=" + cause) + ", attempts=" + attempts + '}';
+    }
+}
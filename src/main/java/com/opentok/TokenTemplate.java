@@ -0,0 +1,56 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import com.opentok.exception.InvalidArgumentException;
+import com.opentok.util.TokenEngine;
+
+/**
+ * A {@link TokenOptions} object that has been validated and pre-encoded once, so that it can be used
+ * to create many tokens cheaply. Use it with the {@link OpenTok#generateToken(String, TokenTemplate)}
+ * and {@link Session#generateToken(TokenTemplate)} methods.
+ * <p>
+ * The role, initial layout class list and connection data are encoded when the template is compiled.
+ * Each token only adds the session ID, the creation time, a nonce and the expiration time. If the
+ * TokenOptions has no expiration time, each token expires 24 hours after it is created. An explicit
+ * expiration time is checked again every time a token is created, since the template may outlive it.
+ * <p>
+ * TokenTemplate objects are immutable and can be shared between threads.
+ */
+public final class TokenTemplate {
+
+    private final TokenOptions tokenOptions;
+    private final TokenEngine.Template template;
+
+    private TokenTemplate(TokenOptions tokenOptions, TokenEngine.Template template) {
+        this.tokenOptions = tokenOptions;
+        this.template = template;
+    }
+
+    /**
+     * Validates and pre-encodes the given TokenOptions.
+     *
+     * @param tokenOptions The options shared by every token created from the template.
+     *
+     * @return The TokenTemplate object.
+     */
+    public static TokenTemplate compile(TokenOptions tokenOptions) throws InvalidArgumentException {
+        return new TokenTemplate(tokenOptions, TokenEngine.compile(tokenOptions));
+    }
+
+    /**
+     * Returns the TokenOptions this template was compiled from.
+     */
+    public TokenOptions getTokenOptions() {
+        return tokenOptions;
+    }
+
+    TokenEngine.Template template() {
+        return template;
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.exception;
+
+/**
+ * Defines an exception object reported when an API call is not sent to the OpenTok server because
+ * recent calls to the same endpoints failed or were too slow, and the circuit breaker protecting them
+ * is open.
+ */
+public class CircuitBreakerOpenException extends RequestException {
+
+    private static final long serialVersionUID = -6571304427617286131L;
+
+    /**
+     * Constructor. Do not use.
+     */
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,26 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.exception;
+
+/**
+ * Defines an exception object reported when an API call fails before any response is received: the
+ * connection to the OpenTok server could not be established, or was closed before the response
+ * started.
+ */
+public class ConnectionFailedException extends RequestException {
+
+    private static final long serialVersionUID = 5018214650737418896L;
+
+    /**
+     * Constructor. Do not use.
+     */
+    public ConnectionFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,25 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.exception;
+
+/**
+ * Defines an exception object reported when an API call is not sent to the OpenTok server because
+ * the client-side rate limit was reached and its wait queue is full.
+ */
+public class RateLimitExceededException extends RequestException {
+
+    private static final long serialVersionUID = 2236175419038573546L;
+
+    /**
+     * Constructor. Do not use.
+     */
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -14,11 +14,21 @@ public class RequestException extends OpenTokException {
 
     private static final long serialVersionUID = -3852834447530956514L;
 
+    private final int statusCode;
+
     /**
      * Constructor. Do not use.
      */
     public RequestException(String message) {
+        this(message, 0);
+    }
+
+    /**
+     * Constructor. Do not use.
+     */
+    public RequestException(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
     }
 
     /**
@@ -26,6 +36,15 @@ public class RequestException extends OpenTokException {
      */
     public RequestException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = 0;
+    }
+
+    /**
+     * The HTTP status code of the response the OpenTok server answered the call with, or 0 if the call
+     * failed without a response.
+     */
+    public int getStatusCode() {
+        return statusCode;
     }
 
 }
@@ -0,0 +1,35 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.exception;
+
+/**
+ * Defines an exception object thrown when an API call to the OpenTok server does not complete
+ * within its timeout.
+ */
+public class RequestTimeoutException extends RequestException {
+
+    private static final long serialVersionUID = 4126498736522157340L;
+
+    private final long timeout;
+
+    /**
+     * Constructor. Do not use.
+     */
+    public RequestTimeoutException(String message, long timeout) {
+        super(message);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the timeout, in milliseconds, that the API call exceeded.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+}
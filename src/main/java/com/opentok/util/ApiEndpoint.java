@@ -0,0 +1,28 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+/**
+ * The groups of OpenTok REST endpoints that {@link OpenTokHttpClient} tracks separately, for example
+ * with one circuit breaker each. Every {@link ApiOperation} belongs to one group.
+ */
+public enum ApiEndpoint {
+    /**
+     * <code>POST /session/create</code>
+     */
+    SESSION_CREATE,
+    /**
+     * The archive reads: <code>GET /v2/project/{apiKey}/archive</code> and
+     * <code>GET /v2/project/{apiKey}/archive/{archiveId}</code>
+     */
+    ARCHIVE_READ,
+    /**
+     * The archive writes: starting, stopping and deleting archives.
+     */
+    ARCHIVE_WRITE
+}
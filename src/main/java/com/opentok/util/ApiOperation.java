@@ -0,0 +1,52 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+/**
+ * The REST operations performed by {@link OpenTokHttpClient}.
+ */
+public enum ApiOperation {
+    CREATE_SESSION("Could not create an OpenTok Session", false, ApiEndpoint.SESSION_CREATE),
+    GET_ARCHIVE("Could not get an OpenTok Archive", true, ApiEndpoint.ARCHIVE_READ),
+    LIST_ARCHIVES("Could not get OpenTok Archives", true, ApiEndpoint.ARCHIVE_READ),
+    START_ARCHIVE("Could not start an OpenTok Archive", false, ApiEndpoint.ARCHIVE_WRITE),
+    STOP_ARCHIVE("Could not stop an OpenTok Archive", false, ApiEndpoint.ARCHIVE_WRITE),
+    DELETE_ARCHIVE("Could not delete an OpenTok Archive", true, ApiEndpoint.ARCHIVE_WRITE);
+
+    private final String failureMessage;
+    private final boolean idempotent;
+    private final ApiEndpoint endpoint;
+
+    ApiOperation(String failureMessage, boolean idempotent, ApiEndpoint endpoint) {
+        this.failureMessage = failureMessage;
+        this.idempotent = idempotent;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * The start of the message of the exceptions reported when this operation fails.
+     */
+    public String failureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * Whether performing this operation more than once has the same effect as performing it once, so
+     * that it can be retried safely after a failure.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * The group of endpoints this operation belongs to.
+     */
+    public ApiEndpoint endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
+import com.opentok.exception.RequestException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caches the archives returned by {@link OpenTokHttpClient#getArchive} and the session archive lists
+ * returned by {@link OpenTokHttpClient#getArchives(String, long, Handler)}, as defined by an
+ * {@link ArchiveCachePolicy}.
+ * <p>
+ * Archives are shared between callers, while each caller gets its own copy of an archive list.
+ * Starting, stopping or deleting an archive through the client invalidates the entries it affects.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ArchiveCache {
+
+    private final ArchiveCachePolicy policy;
+    private final LinkedHashMap<String, CacheEntry<?>> entries;
+    /** incremented by every invalidation */
+    private long generation;
+    /** the generation of the last invalidation of each key, kept while loads started before it are running */
+    private final Map<String, Long> invalidations = new HashMap<>();
+    /** the generation of the last {@link #invalidateAll} */
+    private long clearedGeneration;
+    /** the number of running loads, by the generation they started in */
+    private final TreeMap<Long, Integer> loads = new TreeMap<>();
+    private long hits;
+    private long staleHits;
+    private long misses;
+
+    ArchiveCache(ArchiveCachePolicy policy) {
+        this.policy = policy;
+        this.entries = new LinkedHashMap<String, CacheEntry<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<?>> eldest) {
+                return size() > policy.getMaxSize();
+            }
+        };
+    }
+
+    void getArchive(String archiveId, Consumer<Handler<AsyncResult<Archive>>> loader,
+                    Handler<AsyncResult<Archive>> handler) {
+        get(archiveKey(archiveId), loader, policy::getTtl, UnaryOperator.identity(), handler);
+    }
+
+    void getArchives(String sessionId, Consumer<Handler<AsyncResult<ArchiveList>>> loader,
+                     Handler<AsyncResult<ArchiveList>> handler) {
+        get(sessionKey(sessionId), loader, this::listTtl,
+                list -> new ArchiveList(list, list.getTotalCount()), handler);
+    }
+
+    /**
+     * Removes an archive, the archive list of its session if it is known, and every archive list that
+     * contains it.
+     */
+    public synchronized void invalidateArchive(String archiveId) {
+        generation++;
+        invalidate(archiveKey(archiveId));
+        CacheEntry<?> entry = entries.remove(archiveKey(archiveId));
+        if (entry != null) {
+            invalidate(sessionKey(((Archive) entry.value).getSessionId()));
+        }
+        Iterator<CacheEntry<?>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Object value = iterator.next().value;
+            if (value instanceof ArchiveList && contains((ArchiveList) value, archiveId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the archive list of a session.
+     */
+    public synchronized void invalidateSession(String sessionId) {
+        generation++;
+        invalidate(sessionKey(sessionId));
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        clearedGeneration = generation;
+        invalidations.clear();
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered with a fresh entry.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups answered with an entry that was no longer fresh, while it was being
+     * reloaded, or because reloading it failed.
+     */
+    public synchronized long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * Returns the number of lookups that waited for the OpenTok API.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ArchiveCache{size=" + entries.size() + ", hits=" + hits + ", staleHits=" + staleHits +
+                ", misses=" + misses + '}';
+    }
+
+    private <T> void get(String key, Consumer<Handler<AsyncResult<T>>> loader, ToLongFunction<T> ttl,
+                         UnaryOperator<T> copy, Handler<AsyncResult<T>> handler) {
+        long now = System.currentTimeMillis();
+        CacheEntry<T> entry;
+        boolean answered;
+        boolean reload;
+        long loadGeneration;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            CacheEntry<T> cached = (CacheEntry<T>) entries.get(key);
+            entry = cached;
+            answered = entry != null && now < entry.expiresAt + policy.getStaleWhileRevalidate();
+            if (entry != null && now < entry.expiresAt) {
+                hits++;
+                reload = false;
+            } else {
+                if (answered) {
+                    staleHits++;
+                } else {
+                    misses++;
+                }
+                // a stale entry is reloaded once at a time; identical misses are coalesced by the client
+                reload = !answered || !entry.reloading;
+                if (entry != null) {
+                    entry.reloading = true;
+                }
+            }
+            loadGeneration = generation;
+            if (reload) {
+                loads.merge(loadGeneration, 1, Integer::sum);
+            }
+        }
+
+        if (answered) {
+            handler.handle(Future.succeededFuture(copy.apply(entry.value)));
+        }
+        if (!reload) {
+            return;
+        }
+        CacheEntry<T> previous = entry;
+        loader.accept(result -> {
+            if (result.succeeded()) {
+                T value = result.result();
+                store(key, new CacheEntry<>(copy.apply(value), System.currentTimeMillis() + ttl.applyAsLong(value)),
+                        previous, loadGeneration);
+                if (!answered) {
+                    handler.handle(Future.succeededFuture(value));
+                }
+                return;
+            }
+            loaded(previous, loadGeneration);
+            if (answered) {
+                return;
+            }
+            if (previous != null && isServerFailure(result.cause()) &&
+                    System.currentTimeMillis() < previous.expiresAt + policy.getStaleIfError()) {
+                synchronized (this) {
+                    staleHits++;
+                }
+                handler.handle(Future.succeededFuture(copy.apply(previous.value)));
+            } else {
+                handler.handle(Future.failedFuture(result.cause()));
+            }
+        });
+    }
+
+    /**
+     * Removes an entry, and keeps loads of it that are running from storing what they read before.
+     */
+    private void invalidate(String key) {
+        entries.remove(key);
+        if (!loads.isEmpty()) {
+            invalidations.put(key, generation);
+        }
+    }
+
+    /**
+     * Stores a loaded entry, unless the entry, or an archive of a loaded archive list, was invalidated
+     * after the load started.
+     */
+    private synchronized void store(String key, CacheEntry<?> entry, CacheEntry<?> previous, long loadGeneration) {
+        boolean valid = clearedGeneration <= loadGeneration && !invalidatedSince(key, loadGeneration);
+        if (valid && entry.value instanceof ArchiveList) {
+            for (Archive archive : (ArchiveList) entry.value) {
+                if (invalidatedSince(archiveKey(archive.getId()), loadGeneration)) {
+                    valid = false;
+                    break;
+                }
+            }
+        }
+        if (valid) {
+            entries.put(key, entry);
+        }
+        loaded(previous, loadGeneration);
+    }
+
+    private boolean invalidatedSince(String key, long loadGeneration) {
+        Long invalidated = invalidations.get(key);
+        return invalidated != null && invalidated > loadGeneration;
+    }
+
+    /**
+     * Ends a load, and forgets the invalidations no running load started before.
+     */
+    private synchronized void loaded(CacheEntry<?> previous, long loadGeneration) {
+        if (previous != null) {
+            previous.reloading = false;
+        }
+        if (loads.merge(loadGeneration, -1, Integer::sum) == 0) {
+            loads.remove(loadGeneration);
+        }
+        if (loads.isEmpty()) {
+            invalidations.clear();
+        } else {
+            long oldest = loads.firstKey();
+            invalidations.values().removeIf(invalidated -> invalidated <= oldest);
+        }
+    }
+
+    private long listTtl(ArchiveList list) {
+        long ttl = list.isEmpty() ? policy.getTtl(Archive.Status.STARTED) : Long.MAX_VALUE;
+        for (Archive archive : list) {
+            ttl = Math.min(ttl, policy.getTtl(archive));
+        }
+        return ttl;
+    }
+
+    private static boolean contains(ArchiveList list, String archiveId) {
+        for (Archive archive : list) {
+            if (archiveId.equals(archive.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isServerFailure(Throwable cause) {
+        if (!(cause instanceof RequestException)) {
+            return true;
+        }
+        int statusCode = ((RequestException) cause).getStatusCode();
+        return statusCode == 0 || statusCode >= 500;
+    }
+
+    private static String archiveKey(String archiveId) {
+        return "a:" + archiveId;
+    }
+
+    private static String sessionKey(String sessionId) {
+        return "s:" + sessionId;
+    }
+
+    private static final class CacheEntry<T> {
+        private final T value;
+        private final long expiresAt;
+        private boolean reloading;
+
+        private CacheEntry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
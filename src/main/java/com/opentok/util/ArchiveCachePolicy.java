@@ -0,0 +1,142 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import com.opentok.Archive.Status;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines how the {@link ArchiveCache} of {@link OpenTokHttpClient} keeps archives.
+ * <p>
+ * An archive is fresh for the time to live of its {@link Status}: archives that are being recorded
+ * change within seconds, while archives in a final state rarely change at all. The archive list of a
+ * session is fresh for the shortest time to live of its archives. Available archives are kept for 5
+ * minutes by default, because their download URL is only valid for a limited time.
+ * <p>
+ * With <code>staleWhileRevalidate</code>, an entry that is no longer fresh is still returned for that
+ * long, while it is reloaded in the background. With <code>staleIfError</code>, an entry is returned for
+ * that long after it stopped being fresh if reloading it fails without an answer from the server, or
+ * with a 5xx answer.
+ * <p>
+ * Create an ArchiveCachePolicy object with the {@link Builder} class.
+ */
+public class ArchiveCachePolicy {
+
+    private final Map<Status, Long> ttls;
+    private final int maxSize;
+    private final long staleWhileRevalidate;
+    private final long staleIfError;
+
+    private ArchiveCachePolicy(Builder builder) {
+        this.ttls = new EnumMap<>(builder.ttls);
+        this.maxSize = builder.maxSize;
+        this.staleWhileRevalidate = builder.staleWhileRevalidate;
+        this.staleIfError = builder.staleIfError;
+    }
+
+    /**
+     * Use this class to create an ArchiveCachePolicy object.
+     */
+    public static class Builder {
+        private final Map<Status, Long> ttls = new EnumMap<>(Status.class);
+        private int maxSize = 10000;
+        private long staleWhileRevalidate = 0;
+        private long staleIfError = 0;
+
+        public Builder() {
+            ttl(TimeUnit.SECONDS.toMillis(2), Status.STARTED, Status.PAUSED);
+            ttl(TimeUnit.SECONDS.toMillis(5), Status.STOPPED);
+            ttl(TimeUnit.MINUTES.toMillis(5), Status.AVAILABLE);
+            ttl(TimeUnit.HOURS.toMillis(1), Status.UPLOADED, Status.DELETED, Status.FAILED, Status.EXPIRED);
+        }
+
+        /**
+         * How long, in milliseconds, archives with the given statuses stay fresh. Defaults to 2 seconds
+         * for started and paused archives, 5 seconds for stopped archives, 5 minutes for available
+         * archives, and 1 hour for uploaded, deleted, failed and expired archives.
+         */
+        public Builder ttl(long ttl, Status status, Status... others) {
+            if (ttl < 0) {
+                throw new IllegalArgumentException("The time to live must not be negative. ttl: " + ttl);
+            }
+            ttls.put(status, ttl);
+            for (Status other : others) {
+                ttls.put(other, ttl);
+            }
+            return this;
+        }
+
+        /**
+         * The maximum number of archives and session archive lists kept. The least recently used
+         * entries are evicted first. Defaults to 10000.
+         */
+        public Builder maxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("The cache must hold at least one entry. maxSize: " + maxSize);
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, an entry that is no longer fresh is returned while it is reloaded in
+         * the background. Defaults to 0, which reloads entries before returning them.
+         */
+        public Builder staleWhileRevalidate(long staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, an entry that is no longer fresh is returned if reloading it fails.
+         * Defaults to 0, which reports the failure.
+         */
+        public Builder staleIfError(long staleIfError) {
+            this.staleIfError = staleIfError;
+            return this;
+        }
+
+        /**
+         * Builds the ArchiveCachePolicy object.
+         */
+        public ArchiveCachePolicy build() {
+            return new ArchiveCachePolicy(this);
+        }
+    }
+
+    /**
+     * Returns how long, in milliseconds, an archive with the given status stays fresh.
+     */
+    public long getTtl(Status status) {
+        Long ttl = ttls.get(status);
+        return ttl != null ? ttl : 0;
+    }
+
+    /**
+     * Returns how long, in milliseconds, an archive stays fresh.
+     */
+    public long getTtl(Archive archive) {
+        return getTtl(archive.getStatus());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public long getStaleIfError() {
+        return staleIfError;
+    }
+}
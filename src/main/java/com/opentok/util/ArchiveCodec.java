@@ -0,0 +1,72 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.io.IOException;
+
+/**
+ * Sends {@link Archive} objects over the Vert.x event bus. Local deliveries pass the object itself,
+ * which is never modified after it was decoded; deliveries to other nodes of a cluster use the JSON of
+ * the OpenTok REST API.
+ */
+public class ArchiveCodec implements MessageCodec<Archive, Archive> {
+
+    public static final String NAME = "opentok.archive";
+
+    /**
+     * Registers the codec with an event bus, unless it already is.
+     */
+    public static void register(EventBus eventBus) {
+        try {
+            eventBus.registerCodec(new ArchiveCodec());
+        } catch (IllegalStateException e) {
+            // already registered
+        }
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, Archive archive) {
+        try {
+            byte[] json = JsonCodec.ARCHIVE_WRITER.writeValueAsBytes(archive);
+            buffer.appendInt(json.length);
+            buffer.appendBytes(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode archive " + archive.getId(), e);
+        }
+    }
+
+    @Override
+    public Archive decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        try {
+            return JsonCodec.read(JsonCodec.ARCHIVE_READER, buffer.slice(pos + 4, pos + 4 + length));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not decode an archive", e);
+        }
+    }
+
+    @Override
+    public Archive transform(Archive archive) {
+        return archive;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
+import com.opentok.ArchiveQuery;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A stream of every archive of a project, read one page at a time, most recently started first.
+ * <p>
+ * The next page is requested as soon as the consumer starts on the current one, so the round trip
+ * overlaps with the processing of the page. At most two pages are held at a time, so a paused stream
+ * stops requesting pages once the next one has arrived. The stream ends once it has read the
+ * {@link ArchiveList#getTotalCount() total count} of archives, or a page comes back empty.
+ * <p>
+ * Archives started while the stream is being read shift older ones to later pages. Archives repeated
+ * from the previous page are skipped, so an archive is only emitted twice if more than a page of
+ * archives was started meanwhile. Archives deleted meanwhile may cause others to be missed.
+ * <p>
+ * A cursor for an {@link ArchiveQuery} emits only the archives the query matches, starts with small
+ * pages that double in size, and ends at the first archive created before the lower bound of the
+ * query, or once it has emitted the query's limit of archives, without requesting further pages.
+ */
+public class ArchiveCursor extends ArchiveStream {
+
+    private final OpenTokHttpClient client;
+    private final Vertx vertx;
+    private final int maxPageSize;
+    private final long timeout;
+    private final ArchiveQuery query;
+
+    private int pageSize;
+    private int remaining;
+    private int nextOffset;
+    private boolean fetching;
+    private boolean exhausted;
+    private Set<String> previousPage = new HashSet<>();
+
+    ArchiveCursor(OpenTokHttpClient client, Vertx vertx, int pageSize, long timeout) {
+        this(client, vertx, pageSize, pageSize, timeout, null);
+    }
+
+    ArchiveCursor(OpenTokHttpClient client, Vertx vertx, ArchiveQuery query, long timeout) {
+        this(client, vertx, query.pageSize(), 1000, timeout, query);
+    }
+
+    private ArchiveCursor(OpenTokHttpClient client, Vertx vertx, int pageSize, int maxPageSize, long timeout,
+                          ArchiveQuery query) {
+        if (pageSize <= 0 || pageSize > 1000) {
+            throw new IllegalArgumentException("The page size must be between 1 and 1000. pageSize: " + pageSize);
+        }
+        this.client = client;
+        this.vertx = vertx;
+        this.pageSize = pageSize;
+        this.maxPageSize = Math.max(pageSize, maxPageSize);
+        this.timeout = timeout;
+        this.query = query;
+        this.remaining = query != null ? query.limit() : Integer.MAX_VALUE;
+    }
+
+    void start() {
+        synchronized (this) {
+            fetching = true;
+        }
+        fetch();
+    }
+
+    @Override
+    void flowControl(int queued) {
+        // once the queue is down to the current page, the next one is requested; requests are sent from
+        // the event loop, never while holding the lock of the stream
+        if (!fetching && !exhausted && queued <= maxPageSize) {
+            fetching = true;
+            vertx.runOnContext(v -> fetch());
+        }
+    }
+
+    private void fetch() {
+        int offset;
+        int count;
+        synchronized (this) {
+            offset = nextOffset;
+            count = pageSize;
+        }
+        client.getArchives(offset, count, timeout, result -> {
+            if (result.failed()) {
+                fail(result.cause());
+                return;
+            }
+            ArchiveList page = result.result();
+            List<Archive> archives = new ArrayList<>(page.size());
+            Set<String> ids = new HashSet<>();
+            boolean last;
+            synchronized (this) {
+                boolean cutOff = false;
+                for (Archive archive : page) {
+                    if (query != null && query.isPastCutoff(archive)) {
+                        cutOff = true;
+                        break;
+                    }
+                    ids.add(archive.getId());
+                    if (!previousPage.contains(archive.getId()) && (query == null || query.matches(archive))) {
+                        archives.add(archive);
+                        if (--remaining == 0) {
+                            cutOff = true;
+                            break;
+                        }
+                    }
+                }
+                previousPage = ids;
+                nextOffset += page.size();
+                pageSize = Math.min(maxPageSize, pageSize * 2);
+                exhausted = last = cutOff || page.isEmpty() || nextOffset >= page.getTotalCount();
+                fetching = false;
+            }
+            totalCount(page.getTotalCount());
+            pushAll(archives);
+            if (last) {
+                end();
+            }
+        });
+    }
+}
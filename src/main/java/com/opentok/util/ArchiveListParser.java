@@ -0,0 +1,137 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.opentok.Archive;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+
+/**
+ * Parses an archive list response, <code>{"count":N,"items":[{...},...]}</code>, incrementally as its
+ * chunks arrive, and emits each archive as soon as its closing brace has been read.
+ * <p>
+ * Only the tokens of the archive being read are held, so memory use does not depend on the number of
+ * archives in the response.
+ */
+class ArchiveListParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Handler<Archive> archiveHandler;
+
+    private int depth;
+    private String field;
+    private boolean inItems;
+    private TokenBuffer item;
+    private int totalCount = -1;
+    private boolean complete;
+
+    ArchiveListParser(Handler<Archive> archiveHandler) throws IOException {
+        this.parser = FACTORY.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.archiveHandler = archiveHandler;
+    }
+
+    /**
+     * The <code>count</code> of the response, or -1 if it has not been read yet.
+     */
+    int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Parses the next chunk of the response, emitting every archive it completes.
+     */
+    void feed(Buffer chunk) throws IOException {
+        ByteBuf bytes = chunk.getByteBuf();
+        if (bytes.hasArray()) {
+            feeder.feedInput(bytes.array(), bytes.arrayOffset() + bytes.readerIndex(),
+                    bytes.arrayOffset() + bytes.readerIndex() + bytes.readableBytes());
+        } else {
+            byte[] copy = chunk.getBytes();
+            feeder.feedInput(copy, 0, copy.length);
+        }
+        parse();
+    }
+
+    /**
+     * Signals the end of the response.
+     *
+     * @throws IOException If the response was incomplete.
+     */
+    void end() throws IOException {
+        feeder.endOfInput();
+        parse();
+        if (!complete) {
+            throw new IOException("The archive list ended unexpectedly");
+        }
+    }
+
+    private void parse() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (item != null) {
+                item.copyCurrentEvent(parser);
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    depth++;
+                } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    if (--depth == 2) {
+                        TokenBuffer complete = item;
+                        item = null;
+                        archiveHandler.handle(JsonCodec.ARCHIVE_READER.readValue(complete.asParser()));
+                    }
+                }
+                continue;
+            }
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    if (depth == 2 && token == JsonToken.START_ARRAY && "items".equals(field)) {
+                        inItems = true;
+                    } else if (depth == 3 && inItems && token == JsonToken.START_OBJECT) {
+                        item = new TokenBuffer(parser);
+                        item.copyCurrentEvent(parser);
+                    } else if (depth == 1 && token != JsonToken.START_OBJECT) {
+                        throw new IOException("The archive list is not a JSON object");
+                    }
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (--depth == 1) {
+                        inItems = false;
+                    } else if (depth == 0) {
+                        complete = true;
+                    }
+                    break;
+                case FIELD_NAME:
+                    if (depth == 1) {
+                        field = parser.getCurrentName();
+                    }
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (depth == 1 && "count".equals(field)) {
+                        totalCount = parser.getIntValue();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
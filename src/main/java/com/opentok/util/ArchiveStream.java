@@ -0,0 +1,216 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+/**
+ * A stream of archives, emitted as they are read from the OpenTok API.
+ * <p>
+ * The stream honors back-pressure: while it is paused, or has no handler, archives are queued, and
+ * reading from the API slows down. A stream of a single archive list response pauses the HTTP response
+ * once {@link #HIGH_WATER_MARK} archives are waiting, and resumes it once the queue drains. The end
+ * handler is called after the last archive; if a request fails, the exception handler is called
+ * instead, and no more archives are emitted.
+ */
+public class ArchiveStream implements ReadStream<Archive> {
+
+    /**
+     * The number of queued archives at which the HTTP response is paused.
+     */
+    public static final int HIGH_WATER_MARK = 64;
+
+    private final ArrayDeque<Archive> queue = new ArrayDeque<>();
+    private Handler<Archive> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private boolean paused;
+    private boolean emitting;
+    private boolean ended;
+    private Throwable failure;
+    private boolean done;
+    private HttpClientResponse response;
+    private boolean responsePaused;
+    private volatile int totalCount = -1;
+
+    ArchiveStream() {
+    }
+
+    /**
+     * The total number of archives the OpenTok API reported for the query, or -1 if that part of the
+     * response has not been read yet.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public ArchiveStream exceptionHandler(Handler<Throwable> handler) {
+        synchronized (this) {
+            this.exceptionHandler = handler;
+        }
+        emit();
+        return this;
+    }
+
+    @Override
+    public ArchiveStream handler(Handler<Archive> handler) {
+        synchronized (this) {
+            this.handler = handler;
+        }
+        emit();
+        return this;
+    }
+
+    @Override
+    public ArchiveStream pause() {
+        synchronized (this) {
+            this.paused = true;
+        }
+        return this;
+    }
+
+    @Override
+    public ArchiveStream resume() {
+        synchronized (this) {
+            this.paused = false;
+        }
+        emit();
+        return this;
+    }
+
+    @Override
+    public ArchiveStream endHandler(Handler<Void> endHandler) {
+        synchronized (this) {
+            this.endHandler = endHandler;
+        }
+        emit();
+        return this;
+    }
+
+    /**
+     * Called when the response headers arrive, so that the response can be paused.
+     */
+    synchronized void attach(HttpClientResponse response) {
+        this.response = response;
+    }
+
+    void totalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    void push(Archive archive) {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            queue.add(archive);
+        }
+        emit();
+    }
+
+    void pushAll(Collection<Archive> archives) {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            queue.addAll(archives);
+        }
+        emit();
+    }
+
+    void end() {
+        synchronized (this) {
+            ended = true;
+        }
+        emit();
+    }
+
+    void fail(Throwable cause) {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            failure = cause;
+            queue.clear();
+        }
+        emit();
+    }
+
+    /**
+     * Delivers queued archives, then the end or the failure, while the stream is flowing. Only one
+     * thread emits at a time; others leave their work to it.
+     */
+    private void emit() {
+        synchronized (this) {
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+        }
+        while (true) {
+            Handler<Archive> itemHandler;
+            Archive archive;
+            Handler<Void> end = null;
+            Handler<Throwable> error = null;
+            Throwable cause = null;
+            synchronized (this) {
+                itemHandler = handler;
+                archive = paused || itemHandler == null ? null : queue.poll();
+                if (archive == null) {
+                    if (!done && ended && failure != null && exceptionHandler != null) {
+                        done = true;
+                        error = exceptionHandler;
+                        cause = failure;
+                    } else if (!done && ended && failure == null && queue.isEmpty() && endHandler != null) {
+                        done = true;
+                        end = endHandler;
+                    }
+                }
+                if (!ended) {
+                    flowControl(queue.size());
+                }
+                if (archive == null && end == null && error == null) {
+                    emitting = false;
+                    return;
+                }
+            }
+            if (archive != null) {
+                itemHandler.handle(archive);
+            } else if (error != null) {
+                error.handle(cause);
+            } else {
+                end.handle(null);
+            }
+        }
+    }
+
+    /**
+     * Called, holding the lock of the stream, whenever the number of queued archives may have changed,
+     * until the stream has ended.
+     */
+    void flowControl(int queued) {
+        if (response == null) {
+            return;
+        }
+        if (!responsePaused && queued >= HIGH_WATER_MARK) {
+            responsePaused = true;
+            response.pause();
+        } else if (responsePaused && queued < HIGH_WATER_MARK / 2) {
+            responsePaused = false;
+            response.resume();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.exception.OpenTokException;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the JWT sent in the <code>X-OPENTOK-AUTH</code> header of REST requests, so that a single
+ * signed token is shared by every request until it is rotated.
+ * <p>
+ * A token is valid for <code>lifetime</code> seconds. A Vert.x timer replaces it
+ * <code>refreshAhead</code> seconds before it expires, so requests never wait for signing. If the
+ * timer could not run in time (for example, the event loop was blocked), the next request rotates the
+ * token itself.
+ * <p>
+ * This class is thread-safe.
+ */
+public class AuthTokenCache {
+
+    private final Vertx vertx;
+    private final JwtSigner signer;
+    private final long lifetime;
+    private final long refreshAhead;
+    private volatile CachedToken current;
+    private long timerId = -1;
+    private boolean closed;
+
+    /**
+     * @param lifetime How long each token is valid, in seconds.
+     * @param refreshAhead How many seconds before expiry a token is replaced. Must be lower than
+     * <code>lifetime</code>.
+     */
+    public AuthTokenCache(Vertx vertx, JwtSigner signer, long lifetime, long refreshAhead) {
+        if (lifetime <= 0) {
+            throw new IllegalArgumentException("The auth token lifetime must be positive. lifetime: " + lifetime);
+        }
+        if (refreshAhead < 0 || refreshAhead >= lifetime) {
+            throw new IllegalArgumentException("The auth token refresh ahead time must be between 0 and the lifetime. " +
+                    "refreshAhead: " + refreshAhead);
+        }
+        this.vertx = vertx;
+        this.signer = signer;
+        this.lifetime = lifetime;
+        this.refreshAhead = refreshAhead;
+    }
+
+    /**
+     * Returns the current token, signing a new one if there is none or it is due for rotation.
+     */
+    public String getToken() throws OpenTokException {
+        CachedToken token = current;
+        if (token == null || nowSeconds() >= token.refreshAt) {
+            return rotate(token).value;
+        }
+        return token.value;
+    }
+
+    /**
+     * Stops the background rotation. Later calls to {@link #getToken()} still rotate on demand.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    private synchronized CachedToken rotate(CachedToken seen) throws OpenTokException {
+        // another thread may have rotated while this one was waiting for the lock
+        if (current != seen) {
+            return current;
+        }
+
+        long now = nowSeconds();
+        CachedToken token = new CachedToken(signer.sign(now, now + lifetime),
+                now + lifetime - refreshAhead);
+        current = token;
+        scheduleRotation();
+        return token;
+    }
+
+    private void scheduleRotation() {
+        if (closed) {
+            return;
+        }
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+        }
+        long delay = TimeUnit.SECONDS.toMillis(lifetime - refreshAhead);
+        timerId = vertx.setTimer(Math.max(1, delay), id -> {
+            synchronized (this) {
+                if (timerId != id) {
+                    return;
+                }
+                timerId = -1;
+            }
+            try {
+                rotate(current);
+            } catch (OpenTokException e) {
+                // leave the current token in place; the next request will retry signing
+            }
+        });
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    private static final class CachedToken {
+        private final String value;
+        private final long refreshAt;
+
+        private CachedToken(String value, long refreshAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
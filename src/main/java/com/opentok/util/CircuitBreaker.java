@@ -0,0 +1,248 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.Handler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The circuit breaker protecting one {@link ApiEndpoint} of an {@link OpenTokHttpClient}. See
+ * {@link CircuitBreakerPolicy} for when it opens and closes.
+ * <p>
+ * This class is thread-safe.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Requests are sent and their outcome is recorded.
+         */
+        CLOSED,
+        /**
+         * Requests fail without being sent.
+         */
+        OPEN,
+        /**
+         * A limited number of trial requests are sent to decide whether to close the breaker.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * A change of state of a circuit breaker.
+     */
+    public static final class StateChange {
+        private final ApiEndpoint endpoint;
+        private final State from;
+        private final State to;
+
+        private StateChange(ApiEndpoint endpoint, State from, State to) {
+            this.endpoint = endpoint;
+            this.from = from;
+            this.to = to;
+        }
+
+        public ApiEndpoint getEndpoint() {
+            return endpoint;
+        }
+
+        public State getFrom() {
+            return from;
+        }
+
+        public State getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + ": " + from + " -> " + to;
+        }
+    }
+
+    private final ApiEndpoint endpoint;
+    private final CircuitBreakerPolicy policy;
+    private final Handler<StateChange> stateChangeHandler;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // the outcomes of the last calls, as a ring buffer
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int next;
+    private int recorded;
+    private int failureCount;
+    private int slowCallCount;
+
+    private State state = State.CLOSED;
+    /** incremented on every change of state */
+    private long generation;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    CircuitBreaker(ApiEndpoint endpoint, CircuitBreakerPolicy policy, Handler<StateChange> stateChangeHandler) {
+        this.endpoint = endpoint;
+        this.policy = policy;
+        this.stateChangeHandler = stateChangeHandler;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDuration());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+        this.failures = new boolean[policy.getWindowSize()];
+        this.slowCalls = new boolean[policy.getWindowSize()];
+    }
+
+    public ApiEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * The share of failed requests among the recorded ones, between 0 and 1.
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failureCount / recorded;
+    }
+
+    /**
+     * The share of slow requests among the recorded ones, between 0 and 1.
+     */
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCallCount / recorded;
+    }
+
+    /**
+     * A request permitted by the breaker. It remembers the state the breaker was in when the request
+     * was permitted, so that the outcome of a request sent before a change of state is not mistaken for
+     * one sent after it.
+     */
+    static final class Permit {
+        private final long generation;
+        private final boolean trial;
+
+        private Permit(long generation, boolean trial) {
+            this.generation = generation;
+            this.trial = trial;
+        }
+    }
+
+    /**
+     * Returns the permit to send a request, or null if it may not be sent. Every permitted request must
+     * be reported with {@link #onResult}.
+     */
+    Permit tryAcquire() {
+        StateChange change = null;
+        Permit permit;
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                change = transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                permit = new Permit(generation, false);
+            } else if (state == State.HALF_OPEN && trialsStarted < policy.getHalfOpenTrials()) {
+                trialsStarted++;
+                permit = new Permit(generation, true);
+            } else {
+                permit = null;
+            }
+        }
+        notify(change);
+        return permit;
+    }
+
+    /**
+     * Records the outcome of a permitted request.
+     *
+     * @param permit The permit the request was sent with.
+     * @param durationNanos How long the request took.
+     */
+    void onResult(Permit permit, boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        StateChange change = null;
+        synchronized (this) {
+            // results of requests permitted before the last change of state are ignored: a request
+            // sent before the breaker opened is no trial, and trials do not count once it closed
+            if (permit.generation != generation) {
+                return;
+            }
+            if (permit.trial) {
+                if (failed || slow) {
+                    change = transition(State.OPEN);
+                } else if (++trialsSucceeded >= policy.getHalfOpenTrials()) {
+                    change = transition(State.CLOSED);
+                }
+            } else {
+                record(failed, slow);
+                if (recorded >= policy.getMinimumCalls() &&
+                        ((double) failureCount / recorded >= policy.getFailureRateThreshold() ||
+                                (double) slowCallCount / recorded >= policy.getSlowCallRateThreshold())) {
+                    change = transition(State.OPEN);
+                }
+            }
+        }
+        notify(change);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recorded == failures.length) {
+            if (failures[next]) {
+                failureCount--;
+            }
+            if (slowCalls[next]) {
+                slowCallCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failed;
+        slowCalls[next] = slow;
+        if (failed) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCallCount++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private StateChange transition(State to) {
+        State from = state;
+        state = to;
+        generation++;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (to == State.HALF_OPEN) {
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        } else {
+            next = 0;
+            recorded = 0;
+            failureCount = 0;
+            slowCallCount = 0;
+        }
+        return new StateChange(endpoint, from, to);
+    }
+
+    private void notify(StateChange change) {
+        if (change != null && stateChangeHandler != null) {
+            stateChangeHandler.handle(change);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{endpoint=" + endpoint + ", state=" + state + ", failureRate=" + getFailureRate() +
+                ", slowCallRate=" + getSlowCallRate() + "}";
+    }
+}
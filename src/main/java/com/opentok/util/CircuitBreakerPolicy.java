@@ -0,0 +1,165 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines when the circuit breakers of {@link OpenTokHttpClient} open.
+ * <p>
+ * Each {@link ApiEndpoint} has its own breaker, which records the outcome of the last
+ * <code>windowSize</code> requests sent to it. A request fails when its connection failed, it timed
+ * out, or the server answered with a 5xx status; it is slow when it took longer than
+ * <code>slowCallDuration</code>. Once at least <code>minimumCalls</code> have been recorded, the
+ * breaker opens if the failure rate or the slow call rate reaches its threshold.
+ * <p>
+ * An open breaker fails requests immediately with a
+ * {@link com.opentok.exception.CircuitBreakerOpenException}. After <code>openDuration</code>, it lets
+ * <code>halfOpenTrials</code> requests through: the breaker closes if they all succeed in time, and
+ * opens again otherwise.
+ * <p>
+ * Create a CircuitBreakerPolicy object with the {@link Builder} class.
+ */
+public class CircuitBreakerPolicy {
+
+    /**
+     * A policy whose breakers never open.
+     */
+    public static final CircuitBreakerPolicy DISABLED = new CircuitBreakerPolicy(new Builder(), false);
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDuration;
+    private final long openDuration;
+    private final int halfOpenTrials;
+
+    private CircuitBreakerPolicy(Builder builder, boolean enabled) {
+        this.enabled = enabled;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDuration = builder.slowCallDuration;
+        this.openDuration = builder.openDuration;
+        this.halfOpenTrials = builder.halfOpenTrials;
+    }
+
+    /**
+     * Use this class to create a CircuitBreakerPolicy object.
+     */
+    public static class Builder {
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.8;
+        private long slowCallDuration = TimeUnit.SECONDS.toMillis(10);
+        private long openDuration = TimeUnit.SECONDS.toMillis(15);
+        private int halfOpenTrials = 3;
+
+        /**
+         * The number of most recent requests whose outcome is recorded (default 50), and the number of
+         * them needed before the breaker can open (default 20).
+         */
+        public Builder window(int windowSize, int minimumCalls) {
+            if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+                throw new IllegalArgumentException("The window must hold at least the minimum number of calls. windowSize: " +
+                        windowSize + ", minimumCalls: " + minimumCalls);
+            }
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * The share of failed requests, between 0 and 1, that opens the breaker. Defaults to 0.5.
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * The share of slow requests, between 0 and 1, that opens the breaker. Defaults to 0.8.
+         */
+        public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, a request may take before it counts as slow. Defaults to 10
+         * seconds.
+         */
+        public Builder slowCallDuration(long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, the breaker stays open before it lets trial requests through.
+         * Defaults to 15 seconds.
+         */
+        public Builder openDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * The number of trial requests let through by a half-open breaker. Defaults to 3.
+         */
+        public Builder halfOpenTrials(int halfOpenTrials) {
+            if (halfOpenTrials < 1) {
+                throw new IllegalArgumentException("At least one trial request is needed. halfOpenTrials: " + halfOpenTrials);
+            }
+            this.halfOpenTrials = halfOpenTrials;
+            return this;
+        }
+
+        /**
+         * Builds the CircuitBreakerPolicy object.
+         */
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this, true);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenTrials() {
+        return halfOpenTrials;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.exception.OpenTokException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Signs the REST auth JWT without jose4j. The output is the same compact serialization jose4j
+ * produces for the claim set built by {@link TokenGenerator}:
+ *
+ * <pre>
+ * base64url({"alg":"HS256"}) . base64url({"iss":"{apiKey}","ist":"project","jti":"{jti}","exp":{exp},"iat":{iat}}) . base64url(sig)
+ * </pre>
+ *
+ * The encoded header and the leading 3-byte groups of the claims are computed once. Per token, only
+ * the tail of the claims (from the JWT ID on) is encoded, into a per-thread buffer, and signed with a
+ * per-thread keyed Mac.
+ */
+class Hs256JwtSigner implements JwtSigner {
+
+    private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int JTI_LENGTH = 16;
+    private static final byte[] HEADER = ascii("{\"alg\":\"HS256\"}");
+    private static final byte[] EXP = ascii("\",\"exp\":");
+    private static final byte[] IAT = ascii(",\"iat\":");
+    private static final byte[] BASE64URL = ascii("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+
+    private final SecretKeySpec signingKey;
+    private final int keyBits;
+    /** base64url(header) '.' base64url(aligned start of the claims) */
+    private final byte[] encodedPrefix;
+    /** the claim bytes that did not fit in a whole 3-byte group of the prefix */
+    private final byte[] claimsRemainder;
+    private final ThreadLocal<State> state = new ThreadLocal<>();
+
+    Hs256JwtSigner(int apiKey, String apiSecret) {
+        byte[] key = apiSecret.getBytes(StandardCharsets.UTF_8);
+        this.signingKey = new SecretKeySpec(key, HMAC_SHA256_ALGORITHM);
+        this.keyBits = key.length * 8;
+
+        byte[] claimsStart = ascii("{\"" + TokenGenerator.ISSUER + "\":\"" + apiKey + "\",\"" +
+                TokenGenerator.ISSUER_TYPE + "\":\"" + TokenGenerator.PROJECT_ISSUER_TYPE + "\",\"jti\":\"");
+        int aligned = claimsStart.length - claimsStart.length % 3;
+        byte[] header = new byte[base64Length(HEADER.length) + 1 + base64Length(aligned)];
+        int length = encodeUnpadded(HEADER, 0, HEADER.length, header, 0);
+        header[length++] = '.';
+        length += encodeUnpadded(claimsStart, 0, aligned, header, length);
+        this.encodedPrefix = Arrays.copyOf(header, length);
+        this.claimsRemainder = Arrays.copyOfRange(claimsStart, aligned, claimsStart.length);
+    }
+
+    @Override
+    public String sign(long issuedAt, long expireTime) throws OpenTokException {
+        State s = state();
+        byte[] jti = s.jti;
+        s.random.nextBytes(jti);
+        return sign(issuedAt, expireTime, jti);
+    }
+
+    // the JWT ID is a parameter so tokens can be compared with the ones jose4j produces
+    String sign(long issuedAt, long expireTime, byte[] jti) throws OpenTokException {
+        if (keyBits < SIGNATURE_LENGTH * 8) {
+            throw new OpenTokException("A key of the same size as the hash output (i.e. 256 bits for HS256) or " +
+                    "larger MUST be used with the HMAC SHA algorithms but this key is only " + keyBits + " bits");
+        }
+        State s = state();
+
+        // the rest of the claims, in clear
+        byte[] claims = s.claims;
+        int c = 0;
+        System.arraycopy(claimsRemainder, 0, claims, 0, claimsRemainder.length);
+        c += claimsRemainder.length;
+        c += encodeUnpadded(jti, 0, jti.length, claims, c);
+        System.arraycopy(EXP, 0, claims, c, EXP.length);
+        c += EXP.length;
+        c = putLong(claims, c, expireTime);
+        System.arraycopy(IAT, 0, claims, c, IAT.length);
+        c += IAT.length;
+        c = putLong(claims, c, issuedAt);
+        claims[c++] = '}';
+
+        byte[] out = s.out;
+        System.arraycopy(encodedPrefix, 0, out, 0, encodedPrefix.length);
+        int length = encodedPrefix.length;
+        length += encodeUnpadded(claims, 0, c, out, length);
+        try {
+            s.mac.update(out, 0, length);
+            s.mac.doFinal(s.signature, 0);
+        } catch (ShortBufferException | IllegalStateException e) {
+            throw new OpenTokException(e.getMessage());
+        }
+        out[length++] = '.';
+        length += encodeUnpadded(s.signature, 0, SIGNATURE_LENGTH, out, length);
+        return new String(out, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private State state() throws OpenTokException {
+        State s = state.get();
+        if (s == null) {
+            try {
+                Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+                mac.init(signingKey);
+                s = new State(mac);
+            } catch (GeneralSecurityException e) {
+                throw new OpenTokException(e.getMessage());
+            }
+            state.set(s);
+        }
+        return s;
+    }
+
+    private final class State {
+        private final Mac mac;
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] jti = new byte[JTI_LENGTH];
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        // remainder + jti + two longs + punctuation
+        private final byte[] claims = new byte[claimsRemainder.length + base64Length(JTI_LENGTH) + EXP.length + IAT.length + 2 * 20 + 1];
+        private final byte[] out = new byte[encodedPrefix.length + base64Length(claims.length) + 1 + base64Length(SIGNATURE_LENGTH)];
+
+        private State(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
+    private static int putLong(byte[] dst, int offset, long value) {
+        if (value < 0) {
+            dst[offset++] = '-';
+        } else {
+            value = -value;
+        }
+        int start = offset;
+        do {
+            dst[offset++] = (byte) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = offset - 1; i < j; i++, j--) {
+            byte tmp = dst[i];
+            dst[i] = dst[j];
+            dst[j] = tmp;
+        }
+        return offset;
+    }
+
+    private static int base64Length(int length) {
+        return ((length + 2) / 3) * 4;
+    }
+
+    /**
+     * base64url without padding, as used by JWS compact serialization.
+     */
+    private static int encodeUnpadded(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        int d = dstOffset;
+        int s = offset;
+        int end = offset + length;
+        int whole = end - length % 3;
+        while (s < whole) {
+            int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+            dst[d++] = BASE64URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[d++] = BASE64URL[bits & 0x3f];
+        }
+        int remaining = end - whole;
+        if (remaining > 0) {
+            int bits = (src[s++] & 0xff) << 16;
+            if (remaining == 2) {
+                bits |= (src[s] & 0xff) << 8;
+            }
+            dst[d++] = BASE64URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 12) & 0x3f];
+            if (remaining == 2) {
+                dst[d++] = BASE64URL[(bits >>> 6) & 0x3f];
+            }
+        }
+        return d - dstOffset;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request and connection pool statistics of an {@link OpenTokHttpClient}.
+ * <p>
+ * Vert.x does not expose the state of its connection pool, so a request is counted as waiting for a
+ * connection from the moment it is handed to Vert.x until its head is written to a connection, or it
+ * fails first. Requests held back by a rate limiter, or waiting to be retried, are in flight but not
+ * waiting.
+ */
+public class HttpClientStats {
+
+    private volatile int maxPoolSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    HttpClientStats(HttpClientOptions options) {
+        setPool(options);
+    }
+
+    /**
+     * Updates the pool size after the client fell back from HTTP/2 to HTTP/1.1.
+     */
+    void setPool(HttpClientOptions options) {
+        this.maxPoolSize = options.getProtocolVersion() == HttpVersion.HTTP_2 ?
+                options.getHttp2MaxPoolSize() : options.getMaxPoolSize();
+    }
+
+    /**
+     * The maximum number of pooled connections per host. For HTTP/2, this is the HTTP/2 pool size.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * The number of requests that have been sent and have not completed yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The highest number of requests in flight at once since the client was created.
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    /**
+     * The number of requests sent to Vert.x that are waiting for a pooled connection.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * The number of requests that completed with a response body.
+     */
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    /**
+     * The number of requests that failed.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * The number of times a failed request was sent again.
+     */
+    public long getRetried() {
+        return retried.get();
+    }
+
+    void retried() {
+        retried.incrementAndGet();
+    }
+
+    /**
+     * The number of reads that were not sent because an identical one was in flight, and shared its
+     * result.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    void coalesced() {
+        coalesced.incrementAndGet();
+    }
+
+    /**
+     * Counts a request as in flight until <code>handler</code> is first called.
+     */
+    <T> Handler<AsyncResult<T>> track(Handler<AsyncResult<T>> handler) {
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        AtomicBoolean done = new AtomicBoolean();
+        return result -> {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                if (result.succeeded()) {
+                    succeeded.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            }
+            handler.handle(result);
+        };
+    }
+
+    /**
+     * Counts a request as waiting for a connection until the returned handler is first called.
+     */
+    Handler<Void> awaitConnection() {
+        waiting.incrementAndGet();
+        AtomicBoolean done = new AtomicBoolean();
+        return v -> {
+            if (done.compareAndSet(false, true)) {
+                waiting.decrementAndGet();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientStats{maxPoolSize=" + maxPoolSize + ", inFlight=" + getInFlight() +
+                ", peakInFlight=" + getPeakInFlight() + ", waiting=" + getWaiting() +
+                ", succeeded=" + getSucceeded() + ", failed=" + getFailed() +
+                ", retried=" + getRetried() + ", coalesced=" + getCoalesced() + "}";
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
+import com.opentok.CreatedSession;
+import com.opentok.SessionEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the JSON bodies of OpenTok REST responses and callbacks.
+ * <p>
+ * Bodies are parsed from the bytes of the Vert.x {@link Buffer} they were received in, so they are
+ * never decoded into an intermediate String.
+ */
+public final class JsonCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final ObjectReader ARCHIVE_READER = MAPPER.readerFor(Archive.class);
+    public static final ObjectReader ARCHIVE_LIST_READER = MAPPER.readerFor(ArchiveList.class);
+    public static final ObjectReader CREATED_SESSIONS_READER = MAPPER.readerFor(CreatedSession[].class);
+    public static final ObjectWriter ARCHIVE_WRITER = MAPPER.writerFor(Archive.class);
+    public static final ObjectReader SESSION_EVENTS_READER = MAPPER.readerFor(SessionEvent[].class);
+    public static final ObjectWriter SESSION_EVENTS_WRITER = MAPPER.writerFor(SessionEvent[].class);
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Reads a value from the bytes of <code>body</code>, without copying them when they are in a heap
+     * buffer.
+     */
+    public static <T> T read(ObjectReader reader, Buffer body) throws IOException {
+        ByteBuf bytes = body.getByteBuf();
+        if (bytes.hasArray()) {
+            return reader.readValue(bytes.array(), bytes.arrayOffset() + bytes.readerIndex(), bytes.readableBytes());
+        }
+        try (InputStream in = new ByteBufInputStream(bytes)) {
+            return reader.readValue(in);
+        }
+    }
+}
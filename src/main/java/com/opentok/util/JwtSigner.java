@@ -0,0 +1,51 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.exception.OpenTokException;
+
+/**
+ * Signs the JWT used to authenticate REST requests. The claim set is always the one built by
+ * {@link TokenGenerator}: <code>iss</code>, <code>ist</code>, <code>jti</code>, <code>exp</code> and
+ * <code>iat</code>.
+ */
+public interface JwtSigner {
+
+    /**
+     * The available JwtSigner implementations.
+     */
+    enum Type {
+        /**
+         * Builds and signs the token with jose4j. This is the reference implementation.
+         */
+        JOSE4J,
+        /**
+         * Fills a pre-encoded HS256 header and claim template and signs it with a per-thread keyed Mac.
+         * Produces the same tokens as {@link #JOSE4J} without going through jose4j.
+         */
+        HS256
+    }
+
+    /**
+     * Signs a token.
+     *
+     * @param issuedAt The <code>iat</code> claim, in seconds since the UNIX epoch.
+     * @param expireTime The <code>exp</code> claim, in seconds since the UNIX epoch.
+     */
+    String sign(long issuedAt, long expireTime) throws OpenTokException;
+
+    static JwtSigner create(Type type, int apiKey, String apiSecret) {
+        switch (type) {
+            case HS256:
+                return new Hs256JwtSigner(apiKey, apiSecret);
+            case JOSE4J:
+            default:
+                return (issuedAt, expireTime) -> TokenGenerator.generateToken(apiKey, apiSecret, issuedAt, expireTime);
+        }
+    }
+}
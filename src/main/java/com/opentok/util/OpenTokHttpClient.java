@@ -11,21 +11,39 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
 import com.opentok.ArchiveProperties;
+import com.opentok.ArchiveQuery;
+import com.opentok.CreatedSession;
 import com.opentok.constants.DefaultApiUrl;
 import com.opentok.constants.Version;
+import com.opentok.exception.CircuitBreakerOpenException;
+import com.opentok.exception.ConnectionFailedException;
 import com.opentok.exception.OpenTokException;
+import com.opentok.exception.RateLimitExceededException;
 import com.opentok.exception.RequestException;
+import com.opentok.exception.RequestTimeoutException;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.JdkSSLEngineOptions;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
 
 // TODO: add ,t) to all exceptions
 // TODO: check all requests against the original data to nsure we are sending the same method (and body)
@@ -37,7 +55,22 @@ public class OpenTokHttpClient {
     private final String authHeader = "X-OPENTOK-AUTH";
     private final int apiKey;
     private final Vertx vertx;
-    private final HttpClient httpClient;
+    private volatile HttpClient httpClient;
+    /** set while HTTP/2 is requested and no response has come back over HTTP/1.1 yet */
+    private volatile HttpClientOptions http1FallbackOptions;
+    private HttpClient retiredHttpClient;
+    private final JwtSigner jwtSigner;
+    private final AuthTokenCache authTokenCache;
+    private final HttpClientStats stats;
+    private final Map<ApiOperation, Long> timeouts;
+    private final RetryPolicy retryPolicy;
+    private final RetryPolicy.Budget retryBudget;
+    private final Map<ApiEndpoint, CircuitBreaker> circuitBreakers;
+    private final SingleFlight<Buffer> readCoalescing;
+    private final ArchiveCache archiveCache;
+    private final int maxResponseBodySize;
+    private final RateLimiter projectRateLimiter;
+    private final Map<ApiEndpoint, RateLimiter> endpointRateLimiters;
     private String userAgent;
 
     private OpenTokHttpClient(Builder builder) {
@@ -46,91 +79,89 @@ public class OpenTokHttpClient {
         this.apiSecret = builder.apiSecret;
         this.vertx = builder.vertx;
         this.httpClient = builder.httpClient;
+        this.http1FallbackOptions = builder.http1FallbackOptions;
+        this.jwtSigner = builder.jwtSigner;
+        this.authTokenCache = builder.authTokenCache;
+        this.stats = builder.stats;
+        this.timeouts = new EnumMap<>(builder.timeouts);
+        this.retryPolicy = builder.retryPolicy;
+        this.retryBudget = builder.retryPolicy.newBudget();
+        this.circuitBreakers = new EnumMap<>(ApiEndpoint.class);
+        if (builder.circuitBreakerPolicy.isEnabled()) {
+            for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+                this.circuitBreakers.put(endpoint, new CircuitBreaker(endpoint, builder.circuitBreakerPolicy,
+                        builder.circuitBreakerStateHandler));
+            }
+        }
+        this.readCoalescing = builder.coalesceReads ? new SingleFlight<>() : null;
+        this.archiveCache = builder.archiveCachePolicy != null ? new ArchiveCache(builder.archiveCachePolicy) : null;
+        this.maxResponseBodySize = builder.maxResponseBodySize;
+        this.projectRateLimiter = builder.projectRateLimit != null ? new RateLimiter(vertx, builder.projectRateLimit) : null;
+        this.endpointRateLimiters = new EnumMap<>(ApiEndpoint.class);
+        for (Map.Entry<ApiEndpoint, RateLimit> entry : builder.endpointRateLimits.entrySet()) {
+            this.endpointRateLimiters.put(entry.getKey(), new RateLimiter(vertx, entry.getValue()));
+        }
     }
 
-    public void createSession(Map<String, Collection<String>> params, Handler<AsyncResult<String>> handler) {
-        try {
-            String url = this.apiUrl + "/session/create";
-            Map<String, List<String>> paramsWithList = null;
-            if (params != null) {
-                paramsWithList = new HashMap<>();
-                for (Entry<String, Collection<String>> entry : params.entrySet()) {
-                    paramsWithList.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-                }
-            }
+    public void createSession(Map<String, Collection<String>> params, Handler<AsyncResult<CreatedSession[]>> handler) {
+        createSession(params, 0, handler);
+    }
 
-            HttpClientRequest request = this.httpClient.postAbs(url, response -> {
-                try {
-                    response.exceptionHandler(t ->
-                            handler.handle(Future.failedFuture(new RequestException("Could not create an OpenTok Session", t)))
-                    );
+    public void createSession(Map<String, Collection<String>> params, long timeout,
+                              Handler<AsyncResult<CreatedSession[]>> handler) {
+        String url = this.apiUrl + "/session/create";
+        Map<String, List<String>> paramsWithList = null;
+        if (params != null) {
+            paramsWithList = new HashMap<>();
+            for (Entry<String, Collection<String>> entry : params.entrySet()) {
+                paramsWithList.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
 
-                    response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-                } catch (Throwable t) {
-                    handler.handle(Future.failedFuture(new RequestException("Could not create an OpenTok Session", t)));
-                }
-            });
+        send(ApiOperation.CREATE_SESSION, HttpMethod.POST, url, RequestUtils.buildBodyFromParams(paramsWithList), true,
+                timeout, statusCode -> ApiOperation.CREATE_SESSION.failureMessage(), body -> {
+                    try {
+                        return JsonCodec.read(JsonCodec.CREATED_SESSIONS_READER, body);
+                    } catch (IOException e) {
+                        throw new OpenTokException("Cannot create session. Could not read the response: " + body, e);
+                    }
+                }, handler);
+    }
 
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not create an OpenTok Session", t)))
-            );
+    public void getArchive(String archiveId, Handler<AsyncResult<Archive>> handler) {
+        getArchive(archiveId, 0, handler);
+    }
 
-            setAuthHeaders(request, handler)
-                    .putHeader("Accept", "application/json")
-                    .end(RequestUtils.buildBodyFromParams(paramsWithList));
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not create an OpenTok Session", t)));
+    public void getArchive(String archiveId, long timeout, Handler<AsyncResult<Archive>> handler) {
+        if (archiveCache != null) {
+            archiveCache.getArchive(archiveId, loaded -> fetchArchive(archiveId, timeout, loaded), handler);
+        } else {
+            fetchArchive(archiveId, timeout, handler);
         }
     }
 
-    public void getArchive(String archiveId, Handler<AsyncResult<String>> handler) {
-        try {
-            String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId;
-
-            HttpClientRequest request = this.httpClient.getAbs(url, response -> {
-                try {
-                    response.exceptionHandler(t -> {
-                        Throwable error;
-                        switch (response.statusCode()) {
-                            case 400:
-                                error = new RequestException("Could not get an OpenTok Archive. The archiveId was invalid. " +
-                                        "archiveId: " + archiveId, t);
-                                break;
-
-                            case 403:
-                                error = new RequestException("Could not get an OpenTok Archive. The request was not authorized.", t);
-                                break;
-
-                            case 500:
-                                error = new RequestException("Could not get an OpenTok Archive. A server error occurred.", t);
-                                break;
-
-                            default:
-                                error = new RequestException("Could not get an OpenTok Archive. The server response was invalid." +
-                                        " response code: " + response.statusCode(), t);
-                        }
-
-                        handler.handle(Future.failedFuture(error));
-                    });
-
-                    response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-                } catch (Throwable t) {
-                    handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive. The server response was invalid.", t)));
-                }
-            });
-
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive. The server response was invalid.", t)))
-            );
+    private void fetchArchive(String archiveId, long timeout, Handler<AsyncResult<Archive>> handler) {
+        String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId;
+
+        send(ApiOperation.GET_ARCHIVE, HttpMethod.GET, url, null, false, timeout, statusCode -> {
+            switch (statusCode) {
+                case 400:
+                    return "Could not get an OpenTok Archive. The archiveId was invalid. archiveId: " + archiveId;
+                case 403:
+                    return "Could not get an OpenTok Archive. The request was not authorized.";
+                case 500:
+                    return "Could not get an OpenTok Archive. A server error occurred.";
+                default:
+                    return "Could not get an OpenTok Archive. The server response was invalid. response code: " + statusCode;
+            }
+        }, body -> JsonCodec.read(JsonCodec.ARCHIVE_READER, body), handler);
+    }
 
-            setAuthHeaders(request, handler)
-                    .end();
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive.", t)));
-        }
+    public void getArchives(int offset, int count, Handler<AsyncResult<ArchiveList>> handler) {
+        getArchives(offset, count, 0, handler);
     }
 
-    public void getArchives(int offset, int count, Handler<AsyncResult<String>> handler) {
+    public void getArchives(int offset, int count, long timeout, Handler<AsyncResult<ArchiveList>> handler) {
         String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive";
         if (offset != 0 || count != 1000) {
             url += "?";
@@ -142,231 +173,736 @@ public class OpenTokHttpClient {
             }
         }
 
-        getArchivesImpl(url, handler);
+        getArchivesImpl(url, timeout, handler);
+    }
+
+    public void getArchives(String sessionId, Handler<AsyncResult<ArchiveList>> handler) {
+        getArchives(sessionId, 0, handler);
     }
 
-    public void getArchives(String sessionId, Handler<AsyncResult<String>> handler) {
+    public void getArchives(String sessionId, long timeout, Handler<AsyncResult<ArchiveList>> handler) {
         String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive?sessionId=" + sessionId;
 
-        getArchivesImpl(url, handler);
+        if (archiveCache != null) {
+            archiveCache.getArchives(sessionId, loaded -> getArchivesImpl(url, timeout, loaded), handler);
+        } else {
+            getArchivesImpl(url, timeout, handler);
+        }
     }
 
-    private void getArchivesImpl(String url, Handler<AsyncResult<String>> handler) {
-        try {
-            HttpClientRequest request = this.httpClient.getAbs(url, response -> {
-                response.exceptionHandler(t -> {
-                    Throwable error;
-                    switch (response.statusCode()) {
-                        case 403:
-                            error = new RequestException("Could not get OpenTok Archives. The request was not authorized.", t);
-                            break;
-
-                        case 500:
-                            error = new RequestException("Could not get OpenTok Archives. A server error occurred.", t);
-                            break;
-
-                        default:
-                            error = new RequestException("Could not get an OpenTok Archive. The server response was invalid." +
-                                    " response code: " + response.statusCode(), t);
-                    }
+    private void getArchivesImpl(String url, long timeout, Handler<AsyncResult<ArchiveList>> handler) {
+        send(ApiOperation.LIST_ARCHIVES, HttpMethod.GET, url, null, false, timeout, OpenTokHttpClient::listArchivesError,
+                body -> JsonCodec.read(JsonCodec.ARCHIVE_LIST_READER, body), handler);
+    }
 
-                    handler.handle(Future.failedFuture(error));
-                });
+    public ArchiveStream streamArchives(int offset, int count) {
+        return streamArchives(offset, count, 0);
+    }
 
-                response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-            });
+    /**
+     * Like {@link #getArchives(int, int, long, Handler)}, but emits each archive as soon as it has been
+     * read from the response, instead of once the whole list has been received and decoded.
+     */
+    public ArchiveStream streamArchives(int offset, int count, long timeout) {
+        return streamArchivesImpl(this.apiUrl + "/v2/project/" + this.apiKey + "/archive?offset=" + offset +
+                "&count=" + count, timeout);
+    }
+
+    public ArchiveStream streamArchives(String sessionId) {
+        return streamArchives(sessionId, 0);
+    }
+
+    public ArchiveStream streamArchives(String sessionId, long timeout) {
+        return streamArchivesImpl(this.apiUrl + "/v2/project/" + this.apiKey + "/archive?sessionId=" + sessionId,
+                timeout);
+    }
+
+    /**
+     * Returns a stream of every archive of the project, requesting <code>pageSize</code> archives at a
+     * time. The timeout applies to each page.
+     */
+    public ArchiveCursor streamAllArchives(int pageSize, long timeout) {
+        ArchiveCursor cursor = new ArchiveCursor(this, vertx, pageSize, timeout);
+        cursor.start();
+        return cursor;
+    }
+
+    /**
+     * Returns a stream of the archives of the project that a query matches. The timeout applies to each
+     * page.
+     */
+    public ArchiveCursor queryArchives(ArchiveQuery query, long timeout) {
+        ArchiveCursor cursor = new ArchiveCursor(this, vertx, query, timeout);
+        cursor.start();
+        return cursor;
+    }
+
+    /**
+     * Returns a stream of every archive of the project, with up to <code>parallelism</code> page
+     * requests in flight. The timeout applies to each page.
+     *
+     * @param ordered Whether archives are emitted in the order of the archive list, rather than as their
+     * pages arrive.
+     */
+    public ParallelArchiveStream streamAllArchives(int pageSize, int parallelism, boolean ordered, long timeout) {
+        ParallelArchiveStream stream = new ParallelArchiveStream(this, vertx, pageSize, parallelism, ordered,
+                timeout);
+        stream.start();
+        return stream;
+    }
 
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive. The server response was invalid.", t)))
-            );
+    private ArchiveStream streamArchivesImpl(String url, long timeout) {
+        // streamed reads are not coalesced: every stream has its own consumer, and its own pace
+        ArchiveStream stream = new ArchiveStream();
+        exchange(ApiOperation.LIST_ARCHIVES, HttpMethod.GET, url, null, false, timeout,
+                OpenTokHttpClient::listArchivesError, stream, result -> {
+                    if (result.succeeded()) {
+                        stream.end();
+                    } else {
+                        stream.fail(result.cause());
+                    }
+                });
+        return stream;
+    }
 
-            setAuthHeaders(request, handler)
-                    .end();
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive.", t)));
+    private static String listArchivesError(int statusCode) {
+        switch (statusCode) {
+            case 403:
+                return "Could not get OpenTok Archives. The request was not authorized.";
+            case 500:
+                return "Could not get OpenTok Archives. A server error occurred.";
+            default:
+                return "Could not get OpenTok Archives. The server response was invalid. response code: " + statusCode;
         }
     }
 
-    public void startArchive(String sessionId, ArchiveProperties properties, Handler<AsyncResult<String>> handler) {
+    public void startArchive(String sessionId, ArchiveProperties properties, Handler<AsyncResult<Archive>> handler) {
+        startArchive(sessionId, properties, 0, handler);
+    }
+
+    public void startArchive(String sessionId, ArchiveProperties properties, long timeout,
+                             Handler<AsyncResult<Archive>> handler) {
+        String requestBody;
+        String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive";
+
+        JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+        ObjectNode requestJson = nodeFactory.objectNode();
+        requestJson.put("sessionId", sessionId);
+        requestJson.put("hasVideo", properties.hasVideo());
+        requestJson.put("hasAudio", properties.hasAudio());
+        requestJson.put("outputMode", properties.outputMode().toString());
+        if (properties.layout() != null) {
+            ObjectNode layout = requestJson.putObject("layout");
+            layout.put("type", properties.layout().getType().toString());
+            layout.put("stylesheet", properties.layout().getStylesheet());
+        }
+        if (properties.name() != null) {
+            requestJson.put("name", properties.name());
+        }
         try {
-            String requestBody = null;
-            String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive";
-
-            JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
-            ObjectNode requestJson = nodeFactory.objectNode();
-            requestJson.put("sessionId", sessionId);
-            requestJson.put("hasVideo", properties.hasVideo());
-            requestJson.put("hasAudio", properties.hasAudio());
-            requestJson.put("outputMode", properties.outputMode().toString());
-            if (properties.layout() != null) {
-                ObjectNode layout = requestJson.putObject("layout");
-                layout.put("type", properties.layout().getType().toString());
-                layout.put("stylesheet", properties.layout().getStylesheet());
-            }
-            if (properties.name() != null) {
-                requestJson.put("name", properties.name());
+            requestBody = new ObjectMapper().writeValueAsString(requestJson);
+        } catch (JsonProcessingException e) {
+            handler.handle(Future.failedFuture(new OpenTokException("Could not start an OpenTok Archive. The JSON body encoding failed.", e)));
+            return;
+        }
+
+        send(ApiOperation.START_ARCHIVE, HttpMethod.POST, url, requestBody, true, timeout, statusCode -> {
+            switch (statusCode) {
+                case 403:
+                    return "Could not start an OpenTok Archive. The request was not authorized.";
+                case 404:
+                    return "Could not start an OpenTok Archive. The sessionId does not exist. sessionId = " + sessionId;
+                case 409:
+                    return "Could not start an OpenTok Archive. The session is either peer-to-peer or already recording. " +
+                            "sessionId = " + sessionId;
+                case 500:
+                    return "Could not start an OpenTok Archive. A server error occurred.";
+                default:
+                    return "Could not start an OpenTok Archive. The server response was invalid. response code: " + statusCode;
+            }
+        }, body -> JsonCodec.read(JsonCodec.ARCHIVE_READER, body), invalidating(handler, result ->
+                archiveCache.invalidateSession(sessionId)));
+    }
+
+    public void stopArchive(String archiveId, Handler<AsyncResult<Archive>> handler) {
+        stopArchive(archiveId, 0, handler);
+    }
+
+    public void stopArchive(String archiveId, long timeout, Handler<AsyncResult<Archive>> handler) {
+        String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId + "/stop";
+
+        send(ApiOperation.STOP_ARCHIVE, HttpMethod.POST, url, null, false, timeout, statusCode -> {
+            switch (statusCode) {
+                case 400:
+                    // NOTE: the REST api spec talks about sessionId and action, both of which aren't required.
+                    //       see: https://github.com/opentok/OpenTok-2.0-archiving-samples/blob/master/REST-API.md#stop_archive
+                    return "Could not stop an OpenTok Archive.";
+                case 403:
+                    return "Could not stop an OpenTok Archive. The request was not authorized.";
+                case 404:
+                    return "Could not stop an OpenTok Archive. The archiveId does not exist. archiveId = " + archiveId;
+                case 409:
+                    return "Could not stop an OpenTok Archive. The archive is not being recorded. archiveId = " + archiveId;
+                case 500:
+                    return "Could not stop an OpenTok Archive. A server error occurred.";
+                default:
+                    return "Could not stop an OpenTok Archive. The server response was invalid. response code: " + statusCode;
+            }
+        }, body -> JsonCodec.read(JsonCodec.ARCHIVE_READER, body), invalidating(handler, result -> {
+            archiveCache.invalidateArchive(archiveId);
+            if (result.succeeded()) {
+                archiveCache.invalidateSession(result.result().getSessionId());
             }
+        }));
+    }
+
+    public void deleteArchive(String archiveId, Handler<AsyncResult<Void>> handler) {
+        deleteArchive(archiveId, 0, handler);
+    }
+
+    public void deleteArchive(String archiveId, long timeout, Handler<AsyncResult<Void>> handler) {
+        String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId;
+
+        send(ApiOperation.DELETE_ARCHIVE, HttpMethod.DELETE, url, null, false, timeout, statusCode -> {
+            switch (statusCode) {
+                case 403:
+                    return "Could not delete an OpenTok Archive. The request was not authorized.";
+                case 409:
+                    return "Could not delete an OpenTok Archive. The status was not \"uploaded\", \"available\", or " +
+                            "\"deleted\". archiveId = " + archiveId;
+                case 500:
+                    return "Could not delete an OpenTok Archive. A server error occurred.";
+                default:
+                    return "Could not delete an OpenTok Archive. The server response was invalid. response code: " + statusCode;
+            }
+        }, body -> null, invalidating(handler, result -> archiveCache.invalidateArchive(archiveId)));
+    }
+
+    /**
+     * Invalidates the entries of the archive cache a call may have changed once it completes, whether
+     * it succeeded or not, before calling <code>handler</code>.
+     */
+    private <T> Handler<AsyncResult<T>> invalidating(Handler<AsyncResult<T>> handler,
+                                                     Handler<AsyncResult<T>> invalidation) {
+        if (archiveCache == null) {
+            return handler;
+        }
+        return result -> {
+            invalidation.handle(result);
+            handler.handle(result);
+        };
+    }
+
+    /**
+     * Returns the request and connection pool statistics of this client.
+     */
+    public HttpClientStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the circuit breaker of an endpoint group, or null if circuit breakers are disabled.
+     */
+    public CircuitBreaker getCircuitBreaker(ApiEndpoint endpoint) {
+        return circuitBreakers.get(endpoint);
+    }
+
+    /**
+     * Returns the archive cache, or null if archives are not cached.
+     */
+    public ArchiveCache getArchiveCache() {
+        return archiveCache;
+    }
+
+    /**
+     * Decodes the body of a successful response.
+     */
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(Buffer body) throws Exception;
+    }
+
+    /**
+     * Sends a request and calls <code>handler</code> with the decoded response body.
+     *
+     * @param timeout How long, in milliseconds, the whole exchange may take, from waiting for a pooled
+     * connection to reading the last byte of the response, retries included. 0 uses the timeout
+     * configured for the operation.
+     * @param statusErrors Maps the status code of a response that failed to the message of the
+     * RequestException reported for it.
+     */
+    private <T> void send(ApiOperation operation, HttpMethod method, String url, String body, boolean acceptJson,
+                          long timeout, IntFunction<String> statusErrors, BodyDecoder<T> decoder,
+                          Handler<AsyncResult<T>> handler) {
+        Handler<AsyncResult<Buffer>> decoding = response -> {
+            if (response.failed()) {
+                handler.handle(Future.failedFuture(response.cause()));
+                return;
+            }
+            T value;
             try {
-                requestBody = new ObjectMapper().writeValueAsString(requestJson);
-            } catch (JsonProcessingException e) {
-                handler.handle(Future.failedFuture(new OpenTokException("Could not start an OpenTok Archive. The JSON body encoding failed.", e)));
+                value = decoder.decode(response.result());
+            } catch (OpenTokException e) {
+                handler.handle(Future.failedFuture(e));
+                return;
+            } catch (Exception e) {
+                handler.handle(Future.failedFuture(new RequestException("Exception mapping json: " + e.getMessage(), e)));
+                return;
             }
+            handler.handle(Future.succeededFuture(value));
+        };
 
-            HttpClientRequest request = this.httpClient.postAbs(url, response -> {
-                try {
-                    response.exceptionHandler(t -> {
-                        Throwable error;
-                        switch (response.statusCode()) {
-                            case 403:
-                                error = new RequestException("Could not start an OpenTok Archive. The request was not authorized.", t);
-                                break;
-
-                            case 404:
-                                error = new RequestException("Could not start an OpenTok Archive. The sessionId does not exist. " +
-                                        "sessionId = " + sessionId, t);
-                                break;
-
-                            case 409:
-                                error = new RequestException("Could not start an OpenTok Archive. The session is either " +
-                                        "peer-to-peer or already recording. sessionId = " + sessionId, t);
-                                break;
-
-                            case 500:
-                                error = new RequestException("Could not start an OpenTok Archive. A server error occurred.", t);
-                                break;
-
-                            default:
-                                error = new RequestException("Could not start an OpenTok Archive. The server response was invalid." +
-                                        " response code: " + response.statusCode(), t);
-                        }
+        if (readCoalescing == null || method != HttpMethod.GET) {
+            exchange(operation, method, url, body, acceptJson, timeout, statusErrors, decoding);
+            return;
+        }
+
+        // identical reads share the request of the first one, and its timeout; a caller that joins
+        // with a timeout of its own still gets its answer in time. Each caller decodes the shared
+        // body, so callers never share the decoded objects
+        JoinedCall call = new JoinedCall(decoding);
+        if (readCoalescing.execute(url, call, shared ->
+                exchange(operation, method, url, body, acceptJson, timeout, statusErrors, shared))) {
+            stats.coalesced();
+            if (timeout > 0) {
+                call.startTimer(operation, timeout);
+            }
+        }
+    }
+
+    private void exchange(ApiOperation operation, HttpMethod method, String url, String body, boolean acceptJson,
+                          long timeout, IntFunction<String> statusErrors, Handler<AsyncResult<Buffer>> handler) {
+        exchange(operation, method, url, body, acceptJson, timeout, statusErrors, null, handler);
+    }
 
-                        handler.handle(Future.failedFuture(error));
-                    });
+    /**
+     * @param stream If not null, the archives of a successful response are parsed as they arrive and
+     * pushed to this stream, and <code>handler</code> is called with a null body once the last one was.
+     */
+    private void exchange(ApiOperation operation, HttpMethod method, String url, String body, boolean acceptJson,
+                          long timeout, IntFunction<String> statusErrors, ArchiveStream stream,
+                          Handler<AsyncResult<Buffer>> handler) {
+        Exchange exchange = new Exchange(operation, method, url, body, acceptJson, statusErrors, stream,
+                stats.track(handler));
+        long deadline = timeout > 0 ? timeout : timeouts.get(operation);
+        if (deadline > 0) {
+            exchange.timerId = vertx.setTimer(deadline, id -> exchange.timeOut(new RequestTimeoutException(
+                    operation.failureMessage() + ". The request timed out after " + deadline + " ms.", deadline)));
+        }
+        exchange.attempt();
+    }
+
+    /**
+     * A caller of a coalesced read, which completes once: with the shared result, or with its own
+     * timeout.
+     */
+    private final class JoinedCall implements Handler<AsyncResult<Buffer>> {
+        private final Handler<AsyncResult<Buffer>> handler;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile long timerId = -1;
+
+        private JoinedCall(Handler<AsyncResult<Buffer>> handler) {
+            this.handler = handler;
+        }
 
-                    response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-                } catch (Throwable t) {
-                    handler.handle(Future.failedFuture(new RequestException("Could not start an OpenTok Archive. The server response was invalid.", t)));
+        private void startTimer(ApiOperation operation, long timeout) {
+            timerId = vertx.setTimer(timeout, id -> {
+                if (completed.compareAndSet(false, true)) {
+                    handler.handle(Future.failedFuture(new RequestTimeoutException(
+                            operation.failureMessage() + ". The request timed out after " + timeout + " ms.", timeout)));
                 }
             });
+            if (completed.get()) {
+                vertx.cancelTimer(timerId);
+            }
+        }
 
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not start an OpenTok Archive. The server response was invalid.", t)))
-            );
-
-            setAuthHeaders(request, handler)
-                    .putHeader("Accept", "application/json")
-                    .end(requestBody);
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not start an OpenTok Archive.", t)));
+        @Override
+        public void handle(AsyncResult<Buffer> result) {
+            if (completed.compareAndSet(false, true)) {
+                if (timerId != -1) {
+                    vertx.cancelTimer(timerId);
+                }
+                handler.handle(result);
+            }
         }
     }
 
-    public void stopArchive(String archiveId, Handler<AsyncResult<String>> handler) {
-        try {
-            String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId + "/stop";
+    /**
+     * One call to the OpenTok API, sent one or more times according to the retry policy. It completes
+     * exactly once: with a response, with a failure that is not retried, or with its timeout. A request
+     * that times out is reset, which returns its connection (or its place in the pool's wait queue).
+     */
+    private final class Exchange {
+        private final ApiOperation operation;
+        private final HttpMethod method;
+        private final String url;
+        private final String body;
+        private final boolean acceptJson;
+        private final IntFunction<String> statusErrors;
+        private final ArchiveStream stream;
+        private final Handler<AsyncResult<Buffer>> handler;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile HttpClientRequest request;
+        /** the number of times the request was sent */
+        private volatile int attempts;
+        /** the attempt whose outcome is awaited, or 0 while none is */
+        private final AtomicInteger current = new AtomicInteger();
+        private volatile CircuitBreaker breaker;
+        private volatile CircuitBreaker.Permit permit;
+        /** called once the current attempt got a connection, or ended */
+        private volatile Handler<Void> connected;
+        /** the endpoint limiter whose token was taken by the current attempt, until it is sent */
+        private final AtomicReference<RateLimiter> heldToken = new AtomicReference<>();
+        private volatile long attemptStart;
+        private volatile long timerId = -1;
+        private volatile long backoffTimerId = -1;
+        /** whether archives of the response may have been pushed to the stream */
+        private volatile boolean streaming;
+
+        private Exchange(ApiOperation operation, HttpMethod method, String url, String body, boolean acceptJson,
+                         IntFunction<String> statusErrors, ArchiveStream stream,
+                         Handler<AsyncResult<Buffer>> handler) {
+            this.operation = operation;
+            this.method = method;
+            this.url = url;
+            this.body = body;
+            this.acceptJson = acceptJson;
+            this.statusErrors = statusErrors;
+            this.stream = stream;
+            this.handler = handler;
+        }
 
-            HttpClientRequest request = this.httpClient.postAbs(url, response -> {
-                try {
-                    response.exceptionHandler(t -> {
-                        Throwable error;
-                        switch (response.statusCode()) {
-                            case 400:
-                                // NOTE: the REST api spec talks about sessionId and action, both of which aren't required.
-                                //       see: https://github.com/opentok/OpenTok-2.0-archiving-samples/blob/master/REST-API.md#stop_archive
-                                error = new RequestException("Could not stop an OpenTok Archive.", t);
-                                break;
-
-                            case 403:
-                                error = new RequestException("Could not stop an OpenTok Archive. The request was not authorized.", t);
-                                break;
-
-                            case 404:
-                                error = new RequestException("Could not stop an OpenTok Archive. The archiveId does not exist. " +
-                                        "archiveId = " + archiveId, t);
-                                break;
-
-                            case 409:
-                                error = new RequestException("Could not stop an OpenTok Archive. The archive is not being recorded. " +
-                                        "archiveId = " + archiveId, t);
-                                break;
-
-                            case 500:
-                                error = new RequestException("Could not stop an OpenTok Archive. A server error occurred.", t);
-                                break;
-
-                            default:
-                                error = new RequestException("Could not stop an OpenTok Archive. The server response was invalid." +
-                                        " response code: " + response.statusCode(), t);
+        private void attempt() {
+            admit(0);
+        }
+
+        /**
+         * Waits for the rate limiters, the one of the operation's endpoint group and then the one of the
+         * project, before sending the request.
+         */
+        private void admit(int limiter) {
+            if (completed.get()) {
+                releaseToken();
+                return;
+            }
+            RateLimiter rateLimiter = null;
+            String scope = null;
+            if (limiter == 0) {
+                rateLimiter = endpointRateLimiters.get(operation.endpoint());
+                scope = operation.endpoint().toString();
+            } else if (limiter == 1) {
+                rateLimiter = projectRateLimiter;
+                scope = "the project";
+            }
+            if (limiter > 1) {
+                dispatch();
+            } else if (rateLimiter == null) {
+                admit(limiter + 1);
+            } else {
+                String rejectedScope = scope;
+                RateLimiter acquired = rateLimiter;
+                rateLimiter.acquire(completed::get, granted -> {
+                    if (granted) {
+                        if (limiter == 0) {
+                            heldToken.set(acquired);
+                        }
+                        admit(limiter + 1);
+                    } else if (complete()) {
+                        releaseToken();
+                        handler.handle(Future.failedFuture(new RateLimitExceededException(operation.failureMessage() +
+                                ". The rate limit for " + rejectedScope + " was exceeded.")));
+                    }
+                });
+            }
+        }
+
+        /**
+         * Gives back the endpoint token of an attempt that was not sent.
+         */
+        private void releaseToken() {
+            RateLimiter held = heldToken.getAndSet(null);
+            if (held != null) {
+                held.release();
+            }
+        }
+
+        private void dispatch() {
+            if (completed.get()) {
+                releaseToken();
+                return;
+            }
+            heldToken.set(null);
+            CircuitBreaker breaker = circuitBreakers.get(operation.endpoint());
+            CircuitBreaker.Permit permit = breaker != null ? breaker.tryAcquire() : null;
+            if (breaker != null && permit == null) {
+                if (complete()) {
+                    handler.handle(Future.failedFuture(new CircuitBreakerOpenException(operation.failureMessage() +
+                            ". The circuit breaker for " + operation.endpoint() + " is open.")));
+                }
+                return;
+            }
+            this.breaker = breaker;
+            this.permit = permit;
+            this.attemptStart = System.nanoTime();
+            int attempt = ++attempts;
+            Handler<Void> connected = stats.awaitConnection();
+            this.connected = connected;
+            current.set(attempt);
+            try {
+                HttpClient client = httpClient;
+                HttpClientRequest request = client.requestAbs(method, url, response -> {
+                    try {
+                        if (http1FallbackOptions != null && response.version() != HttpVersion.HTTP_2) {
+                            fallBackToHttp1(client);
+                        }
+                        int statusCode = response.statusCode();
+                        if (stream != null && statusCode >= 200 && statusCode < 300) {
+                            streamArchives(attempt, response);
+                            return;
+                        }
+                        response.exceptionHandler(t ->
+                                fail(attempt, new RequestException(statusErrors.apply(statusCode), t), true)
+                        );
+
+                        String contentLength = response.getHeader("Content-Length");
+                        int expectedLength = contentLength != null ? Integer.parseInt(contentLength.trim()) : -1;
+                        if (expectedLength > maxResponseBodySize) {
+                            bodyTooLarge(attempt);
+                            return;
                         }
 
-                        handler.handle(Future.failedFuture(error));
-                    });
+                        // the body is read in full even on errors, so the connection can be reused
+                        ResponseBody responseBody = new ResponseBody(expectedLength);
+                        response.handler(chunk -> {
+                            if (!responseBody.append(chunk)) {
+                                bodyTooLarge(attempt);
+                            }
+                        });
+                        response.endHandler(v -> {
+                            if (statusCode >= 200 && statusCode < 300) {
+                                succeed(attempt, responseBody.get());
+                            } else {
+                                fail(attempt, new RequestException(statusErrors.apply(statusCode), statusCode),
+                                        statusCode >= 500);
+                            }
+                        });
+                    } catch (Throwable t) {
+                        fail(attempt, new RequestException(operation.failureMessage() +
+                                ". The server response was invalid.", t), false);
+                    }
+                });
+                this.request = request;
+
+                // a connection that could not be established or was reset before the response
+                request.exceptionHandler(t ->
+                        fail(attempt, new ConnectionFailedException(operation.failureMessage() +
+                                ". The server response was invalid.", t), true)
+                );
+
+                setAuthHeaders(request);
+                if (acceptJson) {
+                    request.putHeader("Accept", "application/json");
+                }
+                // the head is written as soon as the request has a connection; the length must then be
+                // known beforehand
+                Buffer content = body != null ? Buffer.buffer(body) : null;
+                if (content != null) {
+                    request.putHeader("Content-Length", Integer.toString(content.length()));
+                }
+                request.sendHead(version -> connected.handle(null));
+                if (content != null) {
+                    request.end(content);
+                } else {
+                    request.end();
+                }
+            } catch (OpenTokException e) {
+                fail(attempt, e, false);
+            } catch (Throwable t) {
+                fail(attempt, new RequestException(operation.failureMessage() + ".", t), false);
+            }
+        }
 
-                    response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-                } catch (Throwable t) {
-                    handler.handle(Future.failedFuture(new RequestException("Could not stop an OpenTok Archive. The server response was invalid.", t)));
+        /**
+         * Parses a successful archive list response into the stream. Once an archive has been emitted
+         * the exchange cannot be retried, so a failure past this point is final.
+         */
+        private void streamArchives(int attempt, HttpClientResponse response) throws IOException {
+            ArchiveListParser parser = new ArchiveListParser(stream::push);
+            streaming = true;
+            stream.attach(response);
+            response.exceptionHandler(t -> fail(attempt, new RequestException(operation.failureMessage() +
+                    ". The server response was invalid.", t), false));
+            response.handler(chunk -> {
+                try {
+                    parser.feed(chunk);
+                    stream.totalCount(parser.getTotalCount());
+                } catch (Exception e) {
+                    invalidStream(attempt, e);
+                }
+            });
+            response.endHandler(v -> {
+                try {
+                    parser.end();
+                    stream.totalCount(parser.getTotalCount());
+                } catch (Exception e) {
+                    invalidStream(attempt, e);
+                    return;
                 }
+                succeed(attempt, null);
             });
+        }
 
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not stop an OpenTok Archive. The server response was invalid.", t)))
-            );
+        private void invalidStream(int attempt, Exception e) {
+            HttpClientRequest request = this.request;
+            fail(attempt, new RequestException("Exception mapping json: " + e.getMessage(), e), false);
+            if (request != null) {
+                request.reset();
+            }
+        }
 
-            setAuthHeaders(request, handler)
-                    .end();
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not stop an OpenTok Archive.", t)));
+        private void bodyTooLarge(int attempt) {
+            HttpClientRequest request = this.request;
+            fail(attempt, new RequestException(operation.failureMessage() + ". The response body exceeded " +
+                    maxResponseBodySize + " bytes."), false);
+            if (request != null) {
+                request.reset();
+            }
         }
-    }
 
-    public void deleteArchive(String archiveId, Handler<AsyncResult<String>> handler) {
-        try {
-            String url = this.apiUrl + "/v2/project/" + this.apiKey + "/archive/" + archiveId;
+        private void succeed(int attempt, Buffer result) {
+            if (finish(attempt, false) && complete()) {
+                retryBudget.onSuccess();
+                handler.handle(Future.succeededFuture(result));
+            }
+        }
 
-            HttpClientRequest request = this.httpClient.deleteAbs(url, response -> {
-                try {
-                    response.exceptionHandler(t -> {
-                        Throwable error;
-                        switch (response.statusCode()) {
-                            case 403:
-                                error = new RequestException("Could not delete an OpenTok Archive. The request was not authorized.", t);
-                                break;
-
-                            case 409:
-                                error = new RequestException("Could not delete an OpenTok Archive. The status was not \"uploaded\"," +
-                                        " \"available\", or \"deleted\". archiveId = " + archiveId, t);
-                                break;
-
-                            case 500:
-                                error = new RequestException("Could not delete an OpenTok Archive. A server error occurred.", t);
-                                break;
-
-                            default:
-                                error = new RequestException("Could not get an OpenTok Archive. The server response was invalid." +
-                                        " response code: " + response.statusCode(), t);
-                        }
+        private void fail(int attempt, Throwable cause, boolean retryable) {
+            // only the first outcome of the current attempt counts, and it is a failure of the
+            // server only if it may be retried
+            if (!finish(attempt, retryable) || completed.get()) {
+                return;
+            }
+            if (retryable && !streaming && retryPolicy.allowsRetry(operation, attempt) && retryBudget.onFailure()) {
+                stats.retried();
+                backoffTimerId = vertx.setTimer(Math.max(1, retryPolicy.backoff(attempt)), id -> {
+                    backoffTimerId = -1;
+                    attempt();
+                });
+            } else if (complete()) {
+                handler.handle(Future.failedFuture(cause));
+            }
+        }
+
+        private void timeOut(RequestTimeoutException e) {
+            if (completed.compareAndSet(false, true)) {
+                releaseToken();
+                int attempt = current.get();
+                if (attempt != 0) {
+                    finish(attempt, true);
+                }
+                if (backoffTimerId != -1) {
+                    vertx.cancelTimer(backoffTimerId);
+                }
+                HttpClientRequest request = this.request;
+                if (request != null) {
+                    request.reset();
+                }
+                handler.handle(Future.failedFuture(e));
+            }
+        }
+
+        /**
+         * Ends an attempt and reports it to the circuit breaker. Returns false if the attempt had
+         * already ended.
+         */
+        private boolean finish(int attempt, boolean failed) {
+            if (!current.compareAndSet(attempt, 0)) {
+                return false;
+            }
+            connected.handle(null);
+            CircuitBreaker breaker = this.breaker;
+            if (breaker != null) {
+                breaker.onResult(permit, failed, System.nanoTime() - attemptStart);
+            }
+            return true;
+        }
+
+        private boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            if (timerId != -1) {
+                vertx.cancelTimer(timerId);
+            }
+            return true;
+        }
+    }
 
-                        handler.handle(Future.failedFuture(error));
-                    });
+    /**
+     * Accumulates the chunks of a response body, up to the maximum body size. A body received in a
+     * single chunk is used as it is.
+     */
+    private final class ResponseBody {
+        private final int expectedLength;
+        private Buffer first;
+        private Buffer body;
+        private int length;
+
+        private ResponseBody(int expectedLength) {
+            this.expectedLength = expectedLength;
+        }
 
-                    response.bodyHandler(buffer -> handler.handle(Future.succeededFuture(buffer.toString())));
-                } catch (Throwable t) {
-                    handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive. The server response was invalid.", t)));
+        private boolean append(Buffer chunk) {
+            length += chunk.length();
+            if (length > maxResponseBodySize) {
+                return false;
+            }
+            if (first == null && body == null) {
+                first = chunk;
+            } else {
+                if (body == null) {
+                    body = Buffer.buffer(Math.max(expectedLength, length));
+                    body.appendBuffer(first);
+                    first = null;
                 }
-            });
+                body.appendBuffer(chunk);
+            }
+            return true;
+        }
 
-            request.exceptionHandler(t ->
-                    handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive. The server response was invalid.", t)))
-            );
+        private Buffer get() {
+            if (body != null) {
+                return body;
+            }
+            return first != null ? first : Buffer.buffer(0);
+        }
+    }
 
-            setAuthHeaders(request, handler)
-                    .end();
-        } catch (Throwable t) {
-            handler.handle(Future.failedFuture(new RequestException("Could not get an OpenTok Archive.", t)));
+    /**
+     * Called when the server answered a request over HTTP/1.1 although HTTP/2 was requested. Vert.x
+     * sizes the pool of such a client for HTTP/2 connections, which limits it to a couple of HTTP/1.1
+     * connections, so later requests are sent with a client configured for HTTP/1.1 only. Requests
+     * already queued on the previous client complete there.
+     */
+    private synchronized void fallBackToHttp1(HttpClient client) {
+        if (http1FallbackOptions == null || client != this.httpClient) {
+            return;
         }
+        HttpClientOptions options = http1FallbackOptions;
+        http1FallbackOptions = null;
+        this.retiredHttpClient = client;
+        this.httpClient = vertx.createHttpClient(options);
+        this.stats.setPool(options);
     }
 
-    public void close() {
+    public synchronized void close() {
+        if (this.authTokenCache != null) {
+            this.authTokenCache.close();
+        }
+        if (this.retiredHttpClient != null) {
+            this.retiredHttpClient.close();
+        }
         this.httpClient.close();
     }
 
@@ -377,11 +913,39 @@ public class OpenTokHttpClient {
         private HttpClientOptions httpClientOptions;
         private HttpClient httpClient;
         private String apiUrl;
+        private boolean authTokenCaching = true;
+        private long authTokenLifetime = TokenGenerator.DEFAULT_LIFETIME_SECONDS;
+        private long authTokenRefreshAhead = 30;
+        private JwtSigner.Type jwtSignerType = JwtSigner.Type.JOSE4J;
+        private JwtSigner jwtSigner;
+        private AuthTokenCache authTokenCache;
+        private int maxPoolSize = 32;
+        private boolean keepAlive = true;
+        private int idleTimeout = 60;
+        private boolean pipelining = false;
+        private int pipeliningLimit = HttpClientOptions.DEFAULT_PIPELINING_LIMIT;
+        private boolean tcpNoDelay = true;
+        private int connectTimeout = 10000;
+        private boolean http2 = false;
+        private int http2MaxPoolSize = 2;
+        private int http2MultiplexingLimit = -1;
+        private HttpClientOptions http1FallbackOptions;
+        private final Map<ApiOperation, Long> timeouts = new EnumMap<>(ApiOperation.class);
+        private RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+        private CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy.Builder().build();
+        private Handler<CircuitBreaker.StateChange> circuitBreakerStateHandler;
+        private RateLimit projectRateLimit;
+        private boolean coalesceReads = true;
+        private ArchiveCachePolicy archiveCachePolicy;
+        private int maxResponseBodySize = 16 * 1024 * 1024;
+        private final Map<ApiEndpoint, RateLimit> endpointRateLimits = new EnumMap<>(ApiEndpoint.class);
+        private HttpClientStats stats;
 
         public Builder(int apiKey, String apiSecret, Vertx vertx) {
             this.vertx = vertx;
             this.apiKey = apiKey;
             this.apiSecret = apiSecret;
+            requestTimeout(30000);
         }
 
         public Builder apiUrl(String apiUrl) {
@@ -389,22 +953,262 @@ public class OpenTokHttpClient {
             return this;
         }
 
+        /**
+         * Sets the options of the underlying Vert.x HttpClient. When set, these options are used as they
+         * are and the connection pool settings of this builder are ignored.
+         */
         public Builder httpClientOptions(HttpClientOptions httpClientOptions) {
             this.httpClientOptions = httpClientOptions;
             return this;
         }
 
+        /**
+         * The maximum number of pooled connections to the OpenTok API. Defaults to 32.
+         */
+        public Builder maxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * Whether connections are kept open and reused for later requests. Defaults to <code>true</code>.
+         */
+        public Builder keepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * How long, in seconds, an unused connection is kept open before it is closed. Defaults to 60
+         * seconds. Set to 0 to keep idle connections open indefinitely.
+         */
+        public Builder idleTimeout(int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * Whether requests are pipelined on kept-alive connections. Defaults to <code>false</code>.
+         */
+        public Builder pipelining(boolean pipelining) {
+            this.pipelining = pipelining;
+            return this;
+        }
+
+        /**
+         * The maximum number of requests pipelined on one connection, when pipelining is enabled.
+         * Defaults to 10.
+         */
+        public Builder pipeliningLimit(int pipeliningLimit) {
+            this.pipeliningLimit = pipeliningLimit;
+            return this;
+        }
+
+        /**
+         * Whether TCP_NODELAY is set on connections. Defaults to <code>true</code>.
+         */
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * How long, in milliseconds, to wait for a connection to be established. Defaults to 10 seconds.
+         */
+        public Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Whether to negotiate HTTP/2 with the OpenTok API, so that concurrent requests share a few
+         * multiplexed TLS connections instead of one connection each. Defaults to <code>false</code>.
+         * <p>
+         * The protocol is negotiated with ALPN, and HTTP/1.1 is used when the server does not accept
+         * HTTP/2 or the JVM does not support ALPN (Java 8 before update 252). The HTTP/1.1 pool settings
+         * of this builder apply in that case.
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * The maximum number of HTTP/2 connections to the OpenTok API. Defaults to 2.
+         */
+        public Builder http2MaxPoolSize(int http2MaxPoolSize) {
+            this.http2MaxPoolSize = http2MaxPoolSize;
+            return this;
+        }
+
+        /**
+         * The maximum number of concurrent requests on one HTTP/2 connection. Defaults to -1, which uses
+         * the limit advertised by the server.
+         */
+        public Builder http2MultiplexingLimit(int http2MultiplexingLimit) {
+            this.http2MultiplexingLimit = http2MultiplexingLimit;
+            return this;
+        }
+
+        /**
+         * Sets how long, in milliseconds, any REST operation may take before it fails with a
+         * {@link RequestTimeoutException}, including the time spent waiting for a pooled connection and
+         * reading the response. Defaults to 30 seconds. 0 disables the timeout.
+         */
+        public Builder requestTimeout(long requestTimeout) {
+            for (ApiOperation operation : ApiOperation.values()) {
+                this.timeouts.put(operation, requestTimeout);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the timeout, in milliseconds, of one REST operation, overriding
+         * {@link #requestTimeout(long)} for it. 0 disables the timeout.
+         */
+        public Builder requestTimeout(ApiOperation operation, long requestTimeout) {
+            this.timeouts.put(operation, requestTimeout);
+            return this;
+        }
+
+        /**
+         * Sets when failed requests are retried. By default, idempotent operations are retried up to
+         * twice after a connection failure or a 5xx response. Use {@link RetryPolicy#NONE} to disable
+         * retries.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sets when the circuit breakers, one for each {@link ApiEndpoint}, stop sending requests. Use
+         * {@link CircuitBreakerPolicy#DISABLED} to always send them.
+         */
+        public Builder circuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        /**
+         * Sets a handler called whenever a circuit breaker opens, becomes half-open or closes. It is
+         * called on the thread that caused the change and must not block.
+         */
+        public Builder circuitBreakerStateHandler(Handler<CircuitBreaker.StateChange> circuitBreakerStateHandler) {
+            this.circuitBreakerStateHandler = circuitBreakerStateHandler;
+            return this;
+        }
+
+        /**
+         * Limits the rate of all the REST requests of this client, which all count against the limits
+         * of the same OpenTok project. There is no limit by default.
+         */
+        public Builder rateLimit(RateLimit rateLimit) {
+            this.projectRateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Limits the rate of the REST requests to one group of endpoints. A request must pass this limit
+         * and then the one set with {@link #rateLimit(RateLimit)}.
+         */
+        public Builder rateLimit(ApiEndpoint endpoint, RateLimit rateLimit) {
+            this.endpointRateLimits.put(endpoint, rateLimit);
+            return this;
+        }
+
+        /**
+         * Whether concurrent identical reads (<code>getArchive</code> and <code>getArchives</code> with
+         * the same arguments) share one request and its result. Defaults to <code>true</code>.
+         */
+        public Builder coalesceReads(boolean coalesceReads) {
+            this.coalesceReads = coalesceReads;
+            return this;
+        }
+
+        /**
+         * Caches the results of {@link #getArchive} and {@link #getArchives(String, long, Handler)} as
+         * defined by a policy. Archives are not cached by default.
+         */
+        public Builder archiveCache(ArchiveCachePolicy archiveCachePolicy) {
+            this.archiveCachePolicy = archiveCachePolicy;
+            return this;
+        }
+
+        /**
+         * The largest response body, in bytes, that is read. A request whose response is larger fails
+         * and its connection is closed. Defaults to 16 MiB.
+         */
+        public Builder maxResponseBodySize(int maxResponseBodySize) {
+            this.maxResponseBodySize = maxResponseBodySize;
+            return this;
+        }
+
+        /**
+         * Whether a signed auth token is shared by all requests until it is rotated (<code>true</code>,
+         * the default) or a new one is signed for every request (<code>false</code>).
+         */
+        public Builder authTokenCaching(boolean authTokenCaching) {
+            this.authTokenCaching = authTokenCaching;
+            return this;
+        }
+
+        /**
+         * How long each shared auth token is valid, in seconds. Defaults to 3 minutes.
+         */
+        public Builder authTokenLifetime(long authTokenLifetime) {
+            this.authTokenLifetime = authTokenLifetime;
+            return this;
+        }
+
+        /**
+         * How many seconds before its expiry a shared auth token is replaced. Defaults to 30 seconds.
+         */
+        public Builder authTokenRefreshAhead(long authTokenRefreshAhead) {
+            this.authTokenRefreshAhead = authTokenRefreshAhead;
+            return this;
+        }
+
+        /**
+         * Selects how the REST auth token is signed. {@link JwtSigner.Type#JOSE4J} (the default) is the
+         * reference implementation; {@link JwtSigner.Type#HS256} produces the same tokens with much less
+         * work per token.
+         */
+        public Builder jwtSigner(JwtSigner.Type jwtSignerType) {
+            this.jwtSignerType = jwtSignerType;
+            return this;
+        }
+
         public OpenTokHttpClient build() {
+            this.jwtSigner = JwtSigner.create(jwtSignerType, apiKey, apiSecret);
+            if (this.authTokenCaching) {
+                this.authTokenCache = new AuthTokenCache(vertx, jwtSigner, authTokenLifetime, authTokenRefreshAhead);
+            }
             if (this.apiUrl == null) {
                 this.apiUrl = DefaultApiUrl.DEFAULT_API_URI;
             }
             if (this.httpClientOptions == null) {
-                this.httpClient = vertx.createHttpClient(new HttpClientOptions()
+                this.httpClientOptions = new HttpClientOptions()
                         .setSsl(true)
-                );
-            } else {
-                this.httpClient = vertx.createHttpClient(this.httpClientOptions);
+                        .setMaxPoolSize(maxPoolSize)
+                        .setKeepAlive(keepAlive)
+                        .setIdleTimeout(idleTimeout)
+                        .setPipelining(pipelining)
+                        .setPipeliningLimit(pipeliningLimit)
+                        .setTcpNoDelay(tcpNoDelay)
+                        .setConnectTimeout(connectTimeout);
+                if (http2 && JdkSSLEngineOptions.isAlpnAvailable()) {
+                    this.http1FallbackOptions = new HttpClientOptions(this.httpClientOptions);
+                    this.httpClientOptions
+                            .setProtocolVersion(HttpVersion.HTTP_2)
+                            .setUseAlpn(true)
+                            .setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1))
+                            .setHttp2MaxPoolSize(http2MaxPoolSize)
+                            .setHttp2MultiplexingLimit(http2MultiplexingLimit);
+                }
             }
+            this.httpClient = vertx.createHttpClient(this.httpClientOptions);
+            this.stats = new HttpClientStats(this.httpClientOptions);
 
             // NOTE: not thread-safe, config could be modified by another thread here?
             OpenTokHttpClient client = new OpenTokHttpClient(this);
@@ -412,12 +1216,13 @@ public class OpenTokHttpClient {
         }
     }
 
-    private <T> HttpClientRequest setAuthHeaders(HttpClientRequest request, Handler<AsyncResult<T>> handler) {
+    private HttpClientRequest setAuthHeaders(HttpClientRequest request) throws OpenTokException {
         request.putHeader("User-Agent", this.getUserAgent());
-        try {
-            request.putHeader(authHeader, TokenGenerator.generateToken(apiKey, apiSecret));
-        } catch (OpenTokException e) {
-            handler.handle(Future.failedFuture(e));
+        if (authTokenCache != null) {
+            request.putHeader(authHeader, authTokenCache.getToken());
+        } else {
+            long now = System.currentTimeMillis() / 1000L;
+            request.putHeader(authHeader, jwtSigner.sign(now, now + TokenGenerator.DEFAULT_LIFETIME_SECONDS));
         }
         return request;
     }
@@ -0,0 +1,208 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A stream of every archive of a project, read with several page requests at a time.
+ * <p>
+ * The first page gives the total count of archives, and so the offsets of all the others, which are
+ * then requested with up to <code>parallelism</code> requests in flight. In ordered mode, archives are
+ * emitted in the order of the archive list, most recently started first, and pages that complete early
+ * wait for the ones before them; otherwise each page is emitted as soon as it arrives.
+ * <p>
+ * Archives started during the listing shift older ones to later offsets. Each response reports the
+ * total count at the time it was answered, and so how far the list had shifted: pages are requested at
+ * the offset their archives have moved to, archives a response returns that belong to an earlier page
+ * are dropped, and the end of a page that was pushed into the next one by archives started while the
+ * request was in flight is requested again. Archives started during the listing are not listed. The
+ * responses can only overlap around the pages requested at the same time, so the IDs of the archives
+ * emitted last, as many as <code>parallelism + 1</code> pages and the shift, are kept so that none is
+ * emitted twice. Archives deleted during the listing may cause others to be missed.
+ * <p>
+ * Pages are requested while fewer than <code>parallelism</code> pages are queued in the stream, so a
+ * paused stream stops requesting pages.
+ */
+public class ParallelArchiveStream extends ArchiveStream {
+
+    private final OpenTokHttpClient client;
+    private final Vertx vertx;
+    private final int pageSize;
+    private final int parallelism;
+    private final boolean ordered;
+    private final long timeout;
+
+    /** the IDs of the archives emitted last, oldest first */
+    private final ArrayDeque<String> recent = new ArrayDeque<>();
+    private final Set<String> seen = new HashSet<>();
+    /** pages received but not yet emitted, in ordered mode, by their position in the first listing */
+    private final TreeMap<Integer, Page> received = new TreeMap<>();
+    /** the ranges of the first listing to request again, because archives pushed them out of a page */
+    private final ArrayDeque<int[]> repairs = new ArrayDeque<>();
+    /** the total count reported with the first page, or -1 until it arrives */
+    private int firstCount = -1;
+    /** how many archives were started since the first page, as far as the responses tell */
+    private int shift;
+    private int nextStart;
+    private int nextToEmit;
+    private int receivedCount;
+    private int inFlight;
+    private boolean failed;
+
+    ParallelArchiveStream(OpenTokHttpClient client, Vertx vertx, int pageSize, int parallelism, boolean ordered,
+                          long timeout) {
+        if (pageSize <= 0 || pageSize > 1000) {
+            throw new IllegalArgumentException("The page size must be between 1 and 1000. pageSize: " + pageSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be positive. parallelism: " + parallelism);
+        }
+        this.client = client;
+        this.vertx = vertx;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.timeout = timeout;
+    }
+
+    void start() {
+        synchronized (this) {
+            inFlight = 1;
+        }
+        fetch(0, pageSize, 0);
+    }
+
+    @Override
+    void flowControl(int queued) {
+        // pages are only requested once the total count is known, and sent from the event loop, never
+        // while holding the lock of the stream
+        synchronized (this) {
+            if (firstCount < 0 || failed) {
+                return;
+            }
+            int buffered = queued + receivedCount;
+            // repairs are sent even when the queue is full: in ordered mode, the pages after them wait
+            // for them in the queue
+            while (inFlight < parallelism && (buffered < parallelism * pageSize || !repairs.isEmpty())) {
+                int start;
+                int end;
+                if (!repairs.isEmpty()) {
+                    int[] range = repairs.poll();
+                    start = range[0];
+                    end = range[1];
+                } else if (nextStart < firstCount) {
+                    start = nextStart;
+                    end = Math.min(start + pageSize, firstCount);
+                    nextStart = end;
+                } else {
+                    break;
+                }
+                int expectedShift = shift;
+                inFlight++;
+                buffered += end - start;
+                vertx.runOnContext(v -> fetch(start, end, expectedShift));
+            }
+        }
+    }
+
+    /**
+     * Requests the archives at positions <code>start</code> to <code>end</code> of the first listing,
+     * expecting <code>expectedShift</code> archives to have been started since.
+     */
+    private void fetch(int start, int end, int expectedShift) {
+        int requested = end - start;
+        client.getArchives(start + expectedShift, requested, timeout, result -> {
+            if (result.failed()) {
+                synchronized (this) {
+                    failed = true;
+                }
+                fail(result.cause());
+                return;
+            }
+            List<Archive> archives = new ArrayList<>();
+            boolean last;
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                inFlight--;
+                ArchiveList list = result.result();
+                if (firstCount < 0) {
+                    firstCount = list.getTotalCount();
+                    nextStart = pageSize;
+                }
+                // archives started while the request was in flight moved the page to later positions:
+                // its first archives belong to the page before, and its last ones were pushed out of it
+                int responseShift = list.getTotalCount() - firstCount;
+                int moved = Math.max(0, responseShift - expectedShift);
+                shift = Math.max(shift, responseShift);
+                int size = list.size();
+                int covered = Math.max(0, size - moved);
+                int next = end;
+                if (size >= requested && start + covered < end) {
+                    next = start + covered;
+                    repairs.addFirst(new int[]{next, end});
+                }
+                List<Archive> page = list.subList(Math.min(moved, size), size);
+                if (!ordered) {
+                    collect(page, archives);
+                } else if (next > start || size < requested) {
+                    received.put(start, new Page(new ArrayList<>(page), next));
+                    receivedCount += page.size();
+                }
+                while (!received.isEmpty() && received.firstKey() == nextToEmit) {
+                    Page first = received.pollFirstEntry().getValue();
+                    receivedCount -= first.archives.size();
+                    collect(first.archives, archives);
+                    nextToEmit = first.next;
+                }
+                last = inFlight == 0 && repairs.isEmpty() && nextStart >= firstCount && received.isEmpty();
+                totalCount(Math.max(getTotalCount(), list.getTotalCount()));
+            }
+            pushAll(archives);
+            if (last) {
+                end();
+            }
+        });
+    }
+
+    private void collect(List<Archive> page, List<Archive> archives) {
+        for (Archive archive : page) {
+            if (seen.add(archive.getId())) {
+                recent.add(archive.getId());
+                archives.add(archive);
+            }
+        }
+        // older archives are never requested again
+        long window = (long) (parallelism + 1) * pageSize + shift;
+        while (recent.size() > window) {
+            seen.remove(recent.poll());
+        }
+    }
+
+    private static final class Page {
+        private final List<Archive> archives;
+        /** the position in the first listing of the page that follows this one */
+        private final int next;
+
+        private Page(List<Archive> archives, int next) {
+            this.archives = archives;
+            this.next = next;
+        }
+    }
+}
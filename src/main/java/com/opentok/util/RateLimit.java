@@ -0,0 +1,126 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+/**
+ * Defines a client-side limit on the rate of REST requests sent by {@link OpenTokHttpClient}.
+ * <p>
+ * The limit is a token bucket: it holds up to <code>burst</code> tokens, refills at
+ * <code>requestsPerSecond</code>, and each request takes one token. Requests that find the bucket
+ * empty wait, in order, in a queue of up to <code>maxQueueSize</code> requests; the
+ * {@link RejectionPolicy} decides what happens to a request that finds the queue full. Waiting
+ * counts towards the request timeout.
+ * <p>
+ * Create a RateLimit object with the {@link Builder} class.
+ */
+public class RateLimit {
+
+    /**
+     * What happens to a request when the wait queue is full. The rejected request fails with a
+     * {@link com.opentok.exception.RateLimitExceededException}.
+     */
+    public enum RejectionPolicy {
+        /**
+         * The new request is rejected.
+         */
+        REJECT_NEW,
+        /**
+         * The request that has waited the longest is rejected, and the new one is queued.
+         */
+        DROP_OLDEST
+    }
+
+    private final double requestsPerSecond;
+    private final int burst;
+    private final int maxQueueSize;
+    private final RejectionPolicy rejectionPolicy;
+
+    private RateLimit(Builder builder) {
+        this.requestsPerSecond = builder.requestsPerSecond;
+        this.burst = builder.burst;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.rejectionPolicy = builder.rejectionPolicy;
+    }
+
+    /**
+     * Use this class to create a RateLimit object.
+     */
+    public static class Builder {
+        private final double requestsPerSecond;
+        private int burst;
+        private int maxQueueSize = 1000;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.REJECT_NEW;
+
+        /**
+         * @param requestsPerSecond The sustained request rate. The burst defaults to one second of
+         * requests.
+         */
+        public Builder(double requestsPerSecond) {
+            if (requestsPerSecond <= 0) {
+                throw new IllegalArgumentException("The request rate must be positive. requestsPerSecond: " + requestsPerSecond);
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = (int) Math.max(1, Math.ceil(requestsPerSecond));
+        }
+
+        /**
+         * The number of requests that may be sent at once after a quiet period.
+         */
+        public Builder burst(int burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("The burst must be at least 1. burst: " + burst);
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * The maximum number of requests waiting for a token. Defaults to 1000; 0 rejects requests
+         * as soon as the bucket is empty.
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize < 0) {
+                throw new IllegalArgumentException("The queue size cannot be negative. maxQueueSize: " + maxQueueSize);
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * What happens to a request when the wait queue is full. Defaults to
+         * {@link RejectionPolicy#REJECT_NEW}.
+         */
+        public Builder rejectionPolicy(RejectionPolicy rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        /**
+         * Builds the RateLimit object.
+         */
+        public RateLimit build() {
+            return new RateLimit(this);
+        }
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Enforces a {@link RateLimit}. Queued requests are released by a Vert.x timer set for the moment the
+ * next token becomes available, so no thread ever waits.
+ * <p>
+ * This class is thread-safe.
+ */
+class RateLimiter {
+
+    private final Vertx vertx;
+    private final RateLimit limit;
+    private final double tokensPerNano;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private double tokens;
+    private long refilledAt;
+    private boolean drainScheduled;
+
+    RateLimiter(Vertx vertx, RateLimit limit) {
+        this.vertx = vertx;
+        this.limit = limit;
+        this.tokensPerNano = limit.getRequestsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = limit.getBurst();
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Calls <code>handler</code> with <code>true</code> once a token was taken, or with
+     * <code>false</code> if the request was rejected. A queued request for which
+     * <code>cancelled</code> returns true when its turn comes is dropped without taking a token.
+     */
+    void acquire(BooleanSupplier cancelled, Handler<Boolean> handler) {
+        Waiter rejected = null;
+        synchronized (this) {
+            refill();
+            if (queue.size() >= limit.getMaxQueueSize()) {
+                // requests that gave up waiting do not hold places in the queue
+                queue.removeIf(waiter -> waiter.cancelled.getAsBoolean());
+            }
+            if (queue.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+            } else if (queue.size() < limit.getMaxQueueSize()) {
+                queue.add(new Waiter(cancelled, handler));
+                scheduleDrain();
+                return;
+            } else if (limit.getRejectionPolicy() == RateLimit.RejectionPolicy.DROP_OLDEST && !queue.isEmpty()) {
+                rejected = queue.poll();
+                queue.add(new Waiter(cancelled, handler));
+            } else {
+                rejected = new Waiter(cancelled, handler);
+            }
+        }
+        if (rejected == null) {
+            handler.handle(true);
+        } else {
+            rejected.handler.handle(false);
+        }
+    }
+
+    /**
+     * Gives back a token taken by a request that was not sent after all.
+     */
+    void release() {
+        synchronized (this) {
+            refill();
+            tokens = Math.min(limit.getBurst(), tokens + 1);
+            if (queue.isEmpty()) {
+                return;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * The number of requests waiting for a token.
+     */
+    synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            refill();
+            while (!queue.isEmpty()) {
+                Waiter waiter = queue.peek();
+                if (waiter.cancelled.getAsBoolean()) {
+                    queue.poll();
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    granted.add(queue.poll());
+                } else {
+                    break;
+                }
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+        for (Waiter waiter : granted) {
+            waiter.handler.handle(true);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(limit.getBurst(), tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        long delay = (long) Math.ceil((1 - tokens) / tokensPerNano);
+        vertx.setTimer(Math.max(1, (delay + 999_999) / 1_000_000), id -> drain());
+    }
+
+    private static final class Waiter {
+        private final BooleanSupplier cancelled;
+        private final Handler<Boolean> handler;
+
+        private Waiter(BooleanSupplier cancelled, Handler<Boolean> handler) {
+            this.cancelled = cancelled;
+            this.handler = handler;
+        }
+    }
+}
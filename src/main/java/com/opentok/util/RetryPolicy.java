@@ -0,0 +1,195 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Defines when {@link OpenTokHttpClient} retries a failed REST request.
+ * <p>
+ * A request is retried when the connection failed or the server responded with a 5xx status, and
+ * its operation is retryable: the idempotent operations ({@link ApiOperation#isIdempotent()}) by
+ * default, others only when enabled with {@link Builder#retry(ApiOperation)}. Attempts are spaced by
+ * a capped exponential backoff with full jitter, and all of them must fit in the request timeout.
+ * <p>
+ * Retries are limited by a budget shared by all requests of a client: every failed attempt that the
+ * policy would retry withdraws one token, every successful request deposits <code>budgetRatio</code>
+ * tokens, and retries stop while less than half of <code>budgetTokens</code> remain. Failures of
+ * operations that are not retried do not draw on the budget. During an outage, this keeps retries from
+ * multiplying the load on the OpenTok API.
+ * <p>
+ * Create a RetryPolicy object with the {@link Builder} class.
+ */
+public class RetryPolicy {
+
+    /**
+     * A policy that never retries.
+     */
+    public static final RetryPolicy NONE = new Builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final Set<ApiOperation> operations;
+    private final int budgetTokens;
+    private final double budgetRatio;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.operations = EnumSet.copyOf(builder.operations);
+        this.budgetTokens = builder.budgetTokens;
+        this.budgetRatio = builder.budgetRatio;
+    }
+
+    /**
+     * Use this class to create a RetryPolicy object.
+     */
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long initialBackoff = 100;
+        private long maxBackoff = 2000;
+        private final Set<ApiOperation> operations = EnumSet.noneOf(ApiOperation.class);
+        private int budgetTokens = 10;
+        private double budgetRatio = 0.1;
+
+        public Builder() {
+            for (ApiOperation operation : ApiOperation.values()) {
+                if (operation.isIdempotent()) {
+                    operations.add(operation);
+                }
+            }
+        }
+
+        /**
+         * The maximum number of times a request is sent, including the first one. Defaults to 3.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("The maximum number of attempts must be at least 1. maxAttempts: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The upper bound, in milliseconds, of the delay before the first retry. It doubles with every
+         * retry, up to <code>maxBackoff</code>. Defaults to 100 ms and 2 seconds.
+         */
+        public Builder backoff(long initialBackoff, long maxBackoff) {
+            if (initialBackoff < 0 || maxBackoff < initialBackoff) {
+                throw new IllegalArgumentException("The backoff must be positive and below its maximum. initialBackoff: " +
+                        initialBackoff + ", maxBackoff: " + maxBackoff);
+            }
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Makes an operation retryable. Use this for non-idempotent operations, such as
+         * {@link ApiOperation#START_ARCHIVE}, only if a duplicate is acceptable: a request whose
+         * response was lost may have been performed.
+         */
+        public Builder retry(ApiOperation operation) {
+            this.operations.add(operation);
+            return this;
+        }
+
+        /**
+         * Stops retrying an operation.
+         */
+        public Builder noRetry(ApiOperation operation) {
+            this.operations.remove(operation);
+            return this;
+        }
+
+        /**
+         * Sets the retry budget: its size in tokens (default 10), and the number of tokens a successful
+         * request deposits (default 0.1, so that sustained retries stay around one for every ten
+         * successful requests).
+         */
+        public Builder budget(int budgetTokens, double budgetRatio) {
+            if (budgetTokens < 1 || budgetRatio <= 0) {
+                throw new IllegalArgumentException("The retry budget must be positive. budgetTokens: " + budgetTokens +
+                        ", budgetRatio: " + budgetRatio);
+            }
+            this.budgetTokens = budgetTokens;
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Builds the RetryPolicy object.
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns whether a failed request of <code>operation</code> may be sent again after
+     * <code>attempts</code> attempts.
+     */
+    public boolean allowsRetry(ApiOperation operation, int attempts) {
+        return attempts < maxAttempts && operations.contains(operation);
+    }
+
+    /**
+     * Returns the delay, in milliseconds, before the retry that follows <code>attempts</code>
+     * attempts: a random value between 0 and the capped exponential backoff.
+     */
+    public long backoff(int attempts) {
+        long cap = initialBackoff << Math.min(attempts - 1, 30);
+        if (cap > maxBackoff || cap < 0) {
+            cap = maxBackoff;
+        }
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    Budget newBudget() {
+        return new Budget(budgetTokens, budgetRatio);
+    }
+
+    /**
+     * The retry budget of one client.
+     */
+    static final class Budget {
+        // in thousandths of a token, so deposits and withdrawals stay exact
+        private static final int SCALE = 1000;
+
+        private final long maxTokens;
+        private final long deposit;
+        private long tokens;
+
+        private Budget(int maxTokens, double ratio) {
+            this.maxTokens = (long) maxTokens * SCALE;
+            this.deposit = Math.max(1, Math.round(ratio * SCALE));
+            this.tokens = this.maxTokens;
+        }
+
+        synchronized void onSuccess() {
+            tokens = Math.min(maxTokens, tokens + deposit);
+        }
+
+        /**
+         * Records a failed attempt the policy allows to retry, and returns whether it may be retried.
+         */
+        synchronized boolean onFailure() {
+            tokens = Math.max(0, tokens - SCALE);
+            return tokens > maxTokens / 2;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.SessionEvent;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends batches of {@link SessionEvent} objects over the Vert.x event bus. Local deliveries pass the
+ * list itself, which is never modified after it was published; deliveries to other nodes of a cluster
+ * use a JSON array.
+ */
+public class SessionEventBatchCodec implements MessageCodec<List<SessionEvent>, List<SessionEvent>> {
+
+    public static final String NAME = "opentok.session-events";
+
+    /**
+     * Registers the codec with an event bus, unless it already is.
+     */
+    public static void register(EventBus eventBus) {
+        try {
+            eventBus.registerCodec(new SessionEventBatchCodec());
+        } catch (IllegalStateException e) {
+            // already registered
+        }
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, List<SessionEvent> events) {
+        try {
+            byte[] json = JsonCodec.SESSION_EVENTS_WRITER.writeValueAsBytes(events.toArray(new SessionEvent[0]));
+            buffer.appendInt(json.length);
+            buffer.appendBytes(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode session events", e);
+        }
+    }
+
+    @Override
+    public List<SessionEvent> decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        try {
+            SessionEvent[] events = JsonCodec.read(JsonCodec.SESSION_EVENTS_READER,
+                    buffer.slice(pos + 4, pos + 4 + length));
+            return Arrays.asList(events);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not decode session events", e);
+        }
+    }
+
+    @Override
+    public List<SessionEvent> transform(List<SessionEvent> events) {
+        return events;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
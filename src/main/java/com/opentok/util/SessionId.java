@@ -0,0 +1,134 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.exception.InvalidArgumentException;
+
+/**
+ * A decoded OpenTok session ID.
+ * <p>
+ * A session ID is a two character prefix followed by the base64url encoding of <code>~</code> separated
+ * parts, the second of which is the ID of the partner (API key) that created the session. {@link #parse}
+ * decodes the ID in a single pass over its characters, without regular expressions or intermediate
+ * strings, and keeps the parts it needs as typed values.
+ */
+public final class SessionId {
+
+    private static final int PARTNER_ID_PART = 1;
+
+    private final String sessionId;
+    private final int partnerId;
+    private final int partCount;
+
+    private SessionId(String sessionId, int partnerId, int partCount) {
+        this.sessionId = sessionId;
+        this.partnerId = partnerId;
+        this.partCount = partCount;
+    }
+
+    /**
+     * Decodes a session ID.
+     *
+     * @throws InvalidArgumentException If the session ID is empty or does not include a partner ID.
+     */
+    public static SessionId parse(String sessionId) throws InvalidArgumentException {
+        if (sessionId == null || sessionId.length() <= 2) {
+            throw new InvalidArgumentException("Session ID was not valid");
+        }
+
+        int part = 0;
+        long partnerId = 0;
+        int partnerDigits = 0;
+        boolean partnerValid = true;
+
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 2; i < sessionId.length(); i++) {
+            int value = decode(sessionId.charAt(i));
+            if (value < 0) {
+                // like commons-codec, skip padding and anything outside of the alphabet
+                continue;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount < 8) {
+                continue;
+            }
+            bitCount -= 8;
+            int b = (bits >> bitCount) & 0xff;
+            if (b == '~') {
+                part++;
+            } else if (part == PARTNER_ID_PART) {
+                if (b >= '0' && b <= '9' && partnerId <= Integer.MAX_VALUE) {
+                    partnerId = partnerId * 10 + (b - '0');
+                    partnerDigits++;
+                } else {
+                    partnerValid = false;
+                }
+            }
+        }
+
+        if (part < PARTNER_ID_PART || partnerDigits == 0 || !partnerValid || partnerId > Integer.MAX_VALUE) {
+            throw new InvalidArgumentException("Session ID was not valid");
+        }
+        return new SessionId(sessionId, (int) partnerId, part + 1);
+    }
+
+    private static int decode(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        } else if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        } else if (c == '-' || c == '+') {
+            return 62;
+        } else if (c == '_' || c == '/') {
+            return 63;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the session ID string this object was decoded from.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the ID of the partner (the OpenTok API key) that created the session.
+     */
+    public int getPartnerId() {
+        return partnerId;
+    }
+
+    /**
+     * Returns the number of <code>~</code> separated parts in the decoded session ID.
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return sessionId.equals(((SessionId) o).sessionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return sessionId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return sessionId;
+    }
+}
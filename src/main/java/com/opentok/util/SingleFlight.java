@@ -0,0 +1,105 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces concurrent calls with the same key: the first call runs, and the calls made while it is
+ * in flight wait for its result instead of running themselves.
+ * <p>
+ * This class is thread-safe.
+ */
+class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, Call<T>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Runs <code>action</code>, unless a call with the same key is in flight, and calls
+     * <code>handler</code> with the result.
+     *
+     * @return true if the call joined one already in flight.
+     */
+    boolean execute(String key, Handler<AsyncResult<T>> handler, Consumer<Handler<AsyncResult<T>>> action) {
+        while (true) {
+            Call<T> call = new Call<>(handler);
+            Call<T> existing = calls.putIfAbsent(key, call);
+            if (existing == null) {
+                try {
+                    action.accept(result -> {
+                        calls.remove(key, call);
+                        call.complete(result);
+                    });
+                } catch (RuntimeException | Error e) {
+                    // the caller gets the exception; the calls that joined in the meantime get it as
+                    // their result
+                    calls.remove(key, call);
+                    call.abort(e);
+                    throw e;
+                }
+                return false;
+            }
+            if (existing.join(handler)) {
+                return true;
+            }
+            // the call completed between the lookup and the join; it is being removed
+            calls.remove(key, existing);
+        }
+    }
+
+    private static final class Call<T> {
+        private List<Handler<AsyncResult<T>>> handlers = new ArrayList<>(2);
+
+        private Call(Handler<AsyncResult<T>> handler) {
+            handlers.add(handler);
+        }
+
+        private synchronized boolean join(Handler<AsyncResult<T>> handler) {
+            if (handlers == null) {
+                return false;
+            }
+            handlers.add(handler);
+            return true;
+        }
+
+        /**
+         * Fails the calls that joined this one, if it has not completed yet.
+         */
+        private void abort(Throwable cause) {
+            List<Handler<AsyncResult<T>>> waiting;
+            synchronized (this) {
+                waiting = handlers;
+                handlers = null;
+            }
+            if (waiting == null) {
+                return;
+            }
+            for (Handler<AsyncResult<T>> handler : waiting.subList(1, waiting.size())) {
+                handler.handle(Future.failedFuture(cause));
+            }
+        }
+
+        private void complete(AsyncResult<T> result) {
+            List<Handler<AsyncResult<T>>> waiting;
+            synchronized (this) {
+                waiting = handlers;
+                handlers = null;
+            }
+            for (Handler<AsyncResult<T>> handler : waiting) {
+                handler.handle(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Role;
+import com.opentok.TokenOptions;
+import com.opentok.exception.InvalidArgumentException;
+import com.opentok.exception.OpenTokException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mints client tokens in the <code>T1==</code> format.
+ * <p>
+ * The keyed HMAC and the scratch buffers are kept per thread, so minting a token does not allocate
+ * anything besides the returned String. The token payload is written straight into a byte buffer
+ * laid out as the final token body:
+ *
+ * <pre>
+ * | partner_id={apiKey}&amp;sig= | {hex signature} | : | session_id=...&amp;create_time=...&amp;... |
+ * | ------- prefix -------- | ---- 40 bytes -- | - | ------------- payload --------------------- |
+ * </pre>
+ *
+ * The payload is signed in place, the hex signature is written in front of it, and the whole body is
+ * base64url encoded in a single pass.
+ */
+public class TokenEngine {
+
+    private static final String HMAC_SHA1_ALGORITHM = "HmacSHA1";
+    private static final int SIGNATURE_LENGTH = 20;
+    private static final int MAX_CONNECTION_DATA_LENGTH = 1000;
+    private static final long DEFAULT_EXPIRE_SECONDS = 60 * 60 * 24; // 1 day
+    private static final long MAX_EXPIRE_SECONDS = 60 * 60 * 24 * 30; // 30 days
+
+    /**
+     * Batches up to this size are always minted on the calling thread.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private static final byte[] TOKEN_SENTINEL = ascii("T1==");
+    private static final byte[] SESSION_ID = ascii("session_id=");
+    private static final byte[] CREATE_TIME = ascii("&create_time=");
+    private static final byte[] NONCE = ascii("&nonce=");
+    private static final byte[] ROLE = ascii("&role=");
+    private static final byte[] INITIAL_LAYOUT_CLASS_LIST = ascii("&initial_layout_class_list=");
+    private static final byte[] EXPIRE_TIME = ascii("&expire_time=");
+    private static final byte[] CONNECTION_DATA = ascii("&connection_data=");
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] HEX_UPPER = ascii("0123456789ABCDEF");
+    private static final byte[] BASE64URL = ascii("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+    private static final byte[][] ROLES = new byte[Role.values().length][];
+
+    static {
+        for (Role role : Role.values()) {
+            ROLES[role.ordinal()] = ascii(role.toString());
+        }
+    }
+
+    private final SecretKeySpec signingKey;
+    private final byte[] prefix;
+    private final int payloadOffset;
+    private final ThreadLocal<State> state = new ThreadLocal<>();
+
+    public TokenEngine(int apiKey, String apiSecret) {
+        this.signingKey = new SecretKeySpec(apiSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA1_ALGORITHM);
+        this.prefix = ascii("partner_id=" + apiKey + "&sig=");
+        this.payloadOffset = prefix.length + SIGNATURE_LENGTH * 2 + 1;
+    }
+
+    /**
+     * Creates a token for the given session ID, using the current time.
+     *
+     * @see com.opentok.Session#generateToken(TokenOptions)
+     */
+    public String generateToken(String sessionId, TokenOptions tokenOptions) throws OpenTokException {
+        return generateToken(sessionId, tokenOptions, System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Creates a token for the given session ID, using <code>now</code> (in seconds since the UNIX epoch)
+     * as the creation time. Lets callers minting many tokens at once read the clock a single time.
+     */
+    public String generateToken(String sessionId, TokenOptions tokenOptions, long now) throws OpenTokException {
+        if (tokenOptions == null) {
+            throw new InvalidArgumentException("Token options cannot be null");
+        }
+
+        long expireTime = resolveExpireTime(tokenOptions.getExpireTime(), now);
+        validateData(tokenOptions.getData());
+
+        State s = start(sessionId, now);
+        writeRole(s, tokenOptions);
+        s.append(EXPIRE_TIME);
+        s.appendLong(expireTime);
+        writeConnectionData(s, tokenOptions);
+        return s.sign();
+    }
+
+    /**
+     * Creates a token from a compiled template, using <code>now</code> (in seconds since the UNIX epoch)
+     * as the creation time. Only the session ID, the times and the nonce are written per token.
+     */
+    public String generateToken(String sessionId, Template template, long now) throws OpenTokException {
+        if (template == null) {
+            throw new InvalidArgumentException("Token template cannot be null");
+        }
+
+        long expireTime = resolveExpireTime(template.expireTime, now);
+
+        State s = start(sessionId, now);
+        s.append(template.role);
+        s.append(EXPIRE_TIME);
+        s.appendLong(expireTime);
+        s.append(template.connectionData);
+        return s.sign();
+    }
+
+    /**
+     * Validates <code>tokenOptions</code> and encodes the parts of the token payload that do not change
+     * from one token to the next: the role, the initial layout class list and the connection data.
+     */
+    public static Template compile(TokenOptions tokenOptions) throws InvalidArgumentException {
+        if (tokenOptions == null) {
+            throw new InvalidArgumentException("Token options cannot be null");
+        }
+        if (tokenOptions.getExpireTime() != 0) {
+            resolveExpireTime(tokenOptions.getExpireTime(), System.currentTimeMillis() / 1000L);
+        }
+        validateData(tokenOptions.getData());
+
+        ByteWriter role = new ByteWriter(new byte[64], 0);
+        writeRole(role, tokenOptions);
+        ByteWriter connectionData = new ByteWriter(new byte[64], 0);
+        writeConnectionData(connectionData, tokenOptions);
+        return new Template(role.toByteArray(), tokenOptions.getExpireTime(), connectionData.toByteArray());
+    }
+
+    private State start(String sessionId, long now) throws OpenTokException {
+        State s = state();
+        s.pos = payloadOffset;
+        s.append(SESSION_ID);
+        s.appendUtf8(sessionId);
+        s.append(CREATE_TIME);
+        s.appendLong(now);
+        s.append(NONCE);
+        s.appendLong(ThreadLocalRandom.current().nextInt());
+        return s;
+    }
+
+    private static void validateData(String data) throws InvalidArgumentException {
+        if (data != null && data.length() > MAX_CONNECTION_DATA_LENGTH) {
+            throw new InvalidArgumentException(
+                    "Connection data must be less than 1000 characters. length: " + data.length());
+        }
+    }
+
+    private static void writeRole(ByteWriter w, TokenOptions tokenOptions) {
+        w.append(ROLE);
+        w.append(ROLES[tokenOptions.getRole().ordinal()]);
+        List<String> initialLayoutClassList = tokenOptions.getInitialLayoutClassList();
+        if (initialLayoutClassList != null) {
+            w.append(INITIAL_LAYOUT_CLASS_LIST);
+            for (int i = 0; i < initialLayoutClassList.size(); i++) {
+                if (i > 0) {
+                    w.append((byte) ' ');
+                }
+                w.appendUtf8(String.valueOf(initialLayoutClassList.get(i)));
+            }
+        }
+    }
+
+    private static void writeConnectionData(ByteWriter w, TokenOptions tokenOptions) {
+        String data = tokenOptions.getData(); // will be null if nothing was explicitly set
+        if (data != null) {
+            w.append(CONNECTION_DATA);
+            w.appendUrlEncoded(data);
+        }
+    }
+
+    /**
+     * Creates one token per element of <code>tokenOptions</code>, in the same order. All of the tokens
+     * share a single creation time. When <code>pool</code> is not null, batches larger than
+     * {@link #PARALLEL_THRESHOLD} are split across it.
+     */
+    public List<String> generateTokens(String sessionId, List<TokenOptions> tokenOptions, ForkJoinPool pool)
+            throws OpenTokException {
+        long now = System.currentTimeMillis() / 1000L;
+        String[] tokens = new String[tokenOptions.size()];
+        if (pool == null || tokens.length <= PARALLEL_THRESHOLD) {
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = generateToken(sessionId, tokenOptions.get(i), now);
+            }
+        } else {
+            try {
+                pool.invoke(new MintTask(sessionId, tokenOptions, now, tokens, 0, tokens.length));
+            } catch (MintException e) {
+                throw e.getCause();
+            }
+        }
+        return Arrays.asList(tokens);
+    }
+
+    /**
+     * Validates an explicitly requested expiration time, or computes the default one when it is 0.
+     */
+    static long resolveExpireTime(long expireTime, long now) throws InvalidArgumentException {
+        if (expireTime == 0) {
+            return now + DEFAULT_EXPIRE_SECONDS;
+        } else if (expireTime < now - 1) {
+            throw new InvalidArgumentException(
+                    "Expire time must be in the future. relative time: " + (double) (expireTime - now));
+        } else if (expireTime > now + MAX_EXPIRE_SECONDS) {
+            throw new InvalidArgumentException(
+                    "Expire time must be in the next 30 days. too large by " + (double) (expireTime - (now + MAX_EXPIRE_SECONDS)));
+        }
+        return expireTime;
+    }
+
+    private State state() throws OpenTokException {
+        State s = state.get();
+        if (s == null) {
+            try {
+                Mac mac = Mac.getInstance(HMAC_SHA1_ALGORITHM);
+                mac.init(signingKey);
+                s = new State(mac);
+            } catch (GeneralSecurityException e) {
+                throw new OpenTokException("Could not generate token, a signing error occurred.", e);
+            }
+            state.set(s);
+        }
+        return s;
+    }
+
+    /**
+     * The pre-encoded, per-token constant parts of a token payload. See {@link #compile(TokenOptions)}.
+     */
+    public static final class Template {
+        private final byte[] role;
+        private final long expireTime;
+        private final byte[] connectionData;
+
+        private Template(byte[] role, long expireTime, byte[] connectionData) {
+            this.role = role;
+            this.expireTime = expireTime;
+            this.connectionData = connectionData;
+        }
+    }
+
+    /**
+     * Splits a batch in halves until it is small enough to mint on the current worker.
+     */
+    private final class MintTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String sessionId;
+        private final List<TokenOptions> tokenOptions;
+        private final long now;
+        private final String[] tokens;
+        private final int from;
+        private final int to;
+
+        private MintTask(String sessionId, List<TokenOptions> tokenOptions, long now, String[] tokens, int from, int to) {
+            this.sessionId = sessionId;
+            this.tokenOptions = tokenOptions;
+            this.now = now;
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                try {
+                    for (int i = from; i < to; i++) {
+                        tokens[i] = generateToken(sessionId, tokenOptions.get(i), now);
+                    }
+                } catch (OpenTokException e) {
+                    throw new MintException(e);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MintTask(sessionId, tokenOptions, now, tokens, from, middle),
+                        new MintTask(sessionId, tokenOptions, now, tokens, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Carries a checked OpenTokException out of the fork-join pool.
+     */
+    private static final class MintException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private MintException(OpenTokException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized OpenTokException getCause() {
+            return (OpenTokException) super.getCause();
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A growable byte buffer that knows how to write the pieces of a token payload.
+     */
+    private static class ByteWriter {
+        byte[] buf;
+        int pos;
+
+        private ByteWriter(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        void append(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void append(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void appendLong(long value) {
+            ensure(20);
+            if (value < 0) {
+                buf[pos++] = '-';
+            } else {
+                value = -value;
+            }
+            // digits are produced from the negated value so Long.MIN_VALUE needs no special case
+            int start = pos;
+            do {
+                buf[pos++] = (byte) ('0' - (value % 10));
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = pos - 1; i < j; i++, j--) {
+                byte tmp = buf[i];
+                buf[i] = buf[j];
+                buf[j] = tmp;
+            }
+        }
+
+        void appendUtf8(String value) {
+            int length = value.length();
+            ensure(length * 3);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else {
+                    i = putUtf8(value, i, false);
+                }
+            }
+        }
+
+        /**
+         * Same output as <code>URLEncoder.encode(value, "UTF-8")</code>.
+         */
+        void appendUrlEncoded(String value) {
+            int length = value.length();
+            ensure(length * 9);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                        || c == '.' || c == '-' || c == '*' || c == '_') {
+                    buf[pos++] = (byte) c;
+                } else if (c == ' ') {
+                    buf[pos++] = '+';
+                } else if (c < 0x80) {
+                    putEscaped(c);
+                } else {
+                    i = putUtf8(value, i, true);
+                }
+            }
+        }
+
+        /**
+         * Writes the code point starting at <code>i</code> and returns the index of its last char.
+         * Unpaired surrogates are written as '?', like <code>String.getBytes</code> does.
+         */
+        int putUtf8(String value, int i, boolean escape) {
+            char c = value.charAt(i);
+            int codePoint = c;
+            int last = i;
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+                last = i + 1;
+            } else if (Character.isSurrogate(c)) {
+                codePoint = '?';
+            }
+
+            if (codePoint < 0x80) {
+                putByte(codePoint, escape);
+            } else if (codePoint < 0x800) {
+                putByte(0xc0 | (codePoint >> 6), escape);
+                putByte(0x80 | (codePoint & 0x3f), escape);
+            } else if (codePoint < 0x10000) {
+                putByte(0xe0 | (codePoint >> 12), escape);
+                putByte(0x80 | ((codePoint >> 6) & 0x3f), escape);
+                putByte(0x80 | (codePoint & 0x3f), escape);
+            } else {
+                putByte(0xf0 | (codePoint >> 18), escape);
+                putByte(0x80 | ((codePoint >> 12) & 0x3f), escape);
+                putByte(0x80 | ((codePoint >> 6) & 0x3f), escape);
+                putByte(0x80 | (codePoint & 0x3f), escape);
+            }
+            return last;
+        }
+
+        void putByte(int b, boolean escape) {
+            if (escape) {
+                putEscaped(b);
+            } else {
+                buf[pos++] = (byte) b;
+            }
+        }
+
+        void putEscaped(int b) {
+            buf[pos++] = '%';
+            buf[pos++] = HEX_UPPER[(b >> 4) & 0x0f];
+            buf[pos++] = HEX_UPPER[b & 0x0f];
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    /**
+     * Per-thread scratch space: the keyed Mac, the token body being built and the encoded output.
+     */
+    private final class State extends ByteWriter {
+        private final Mac mac;
+        private final byte[] digest = new byte[SIGNATURE_LENGTH];
+        private byte[] out = new byte[0];
+
+        private State(Mac mac) {
+            super(Arrays.copyOf(prefix, 512), payloadOffset);
+            this.mac = mac;
+            this.buf[payloadOffset - 1] = ':';
+        }
+
+        private String sign() throws OpenTokException {
+            try {
+                mac.update(buf, payloadOffset, pos - payloadOffset);
+                mac.doFinal(digest, 0);
+            } catch (ShortBufferException | IllegalStateException e) {
+                throw new OpenTokException("Could not generate token, a signing error occurred.", e);
+            }
+
+            int h = prefix.length;
+            for (byte b : digest) {
+                buf[h++] = HEX[(b >> 4) & 0x0f];
+                buf[h++] = HEX[b & 0x0f];
+            }
+
+            if (out.length < TOKEN_SENTINEL.length + base64Length(pos)) {
+                out = new byte[TOKEN_SENTINEL.length + base64Length(buf.length)];
+            }
+            System.arraycopy(TOKEN_SENTINEL, 0, out, 0, TOKEN_SENTINEL.length);
+            int length = encodeBase64Url(buf, pos, out, TOKEN_SENTINEL.length);
+            return new String(out, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static int base64Length(int length) {
+        return ((length + 2) / 3) * 4;
+    }
+
+    /**
+     * Base64 with the URL-safe alphabet, keeping the '=' padding (as the token format always has).
+     */
+    private static int encodeBase64Url(byte[] src, int length, byte[] dst, int offset) {
+        int d = offset;
+        int s = 0;
+        int whole = length - length % 3;
+        while (s < whole) {
+            int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+            dst[d++] = BASE64URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[d++] = BASE64URL[bits & 0x3f];
+        }
+        int remaining = length - whole;
+        if (remaining > 0) {
+            int bits = (src[s++] & 0xff) << 16;
+            if (remaining == 2) {
+                bits |= (src[s] & 0xff) << 8;
+            }
+            dst[d++] = BASE64URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[d++] = remaining == 2 ? BASE64URL[(bits >>> 6) & 0x3f] : (byte) '=';
+            dst[d++] = '=';
+        }
+        return d;
+    }
+}
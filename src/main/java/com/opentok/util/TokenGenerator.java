@@ -24,6 +24,7 @@ public class TokenGenerator {
     public static final String ISSUED_AT = "iat";
     public static final String EXP = "exp";
     public static final String PROJECT_ISSUER_TYPE = "project";
+    public static final long DEFAULT_LIFETIME_SECONDS = TimeUnit.MINUTES.toSeconds(3);
 
 
     // Used by the REST Endpoints
@@ -32,22 +33,34 @@ public class TokenGenerator {
 
         //This is the default expire time we use for rest endpoints.
         final long defaultExpireTime = System.currentTimeMillis() / 1000L
-                + TimeUnit.MINUTES.toSeconds(3);
+                + DEFAULT_LIFETIME_SECONDS;
+        return generateToken(apiKey, apiSecret, defaultExpireTime);
+    }
+
+    // Used by the REST Endpoints, with an explicit expire time in seconds since the UNIX epoch
+    public static String generateToken(final Integer apiKey, final String apiSecret, final long expireTime)
+            throws OpenTokException {
+        return generateToken(apiKey, apiSecret, System.currentTimeMillis() / 1000L, expireTime);
+    }
+
+    // Used by the REST Endpoints, with explicit issued at and expire times in seconds since the UNIX epoch
+    public static String generateToken(final Integer apiKey, final String apiSecret, final long issuedAt,
+                                       final long expireTime) throws OpenTokException {
         final JwtClaims claims = new JwtClaims();
         claims.setIssuer(apiKey.toString());
         claims.setStringClaim(ISSUER_TYPE, PROJECT_ISSUER_TYPE);
         claims.setGeneratedJwtId(); // JTI a unique identifier for the JWT.
 
-        return getToken(claims, defaultExpireTime, apiSecret);
+        return getToken(claims, issuedAt, expireTime, apiSecret);
     }
 
-    private static String getToken(final JwtClaims claims, final long expireTime,
+    private static String getToken(final JwtClaims claims, final long issuedAt, final long expireTime,
                                    final String apiSecret) throws OpenTokException {
         final SecretKeySpec spec = new SecretKeySpec(apiSecret.getBytes(),
                 AlgorithmIdentifiers.HMAC_SHA256);
 
         claims.setExpirationTime(NumericDate.fromSeconds(expireTime));
-        claims.setIssuedAtToNow();
+        claims.setIssuedAt(NumericDate.fromSeconds(issuedAt));
 
         final JsonWebSignature jws = new JsonWebSignature();
         jws.setPayload(claims.toJson());
@@ -0,0 +1,88 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.opentok.CallbackServer.awaitCount;
+import static com.opentok.CallbackServer.payload;
+import static org.junit.Assert.assertEquals;
+
+public class ArchiveCallbackHandlerTest {
+
+    private Vertx vertx;
+    private List<Archive> archives;
+    private CallbackServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        archives = new CopyOnWriteArrayList<>();
+        ArchiveCallbackHandler handler = new ArchiveCallbackHandler.Builder(vertx, 123456)
+                .maxBodySize(4096)
+                .build()
+                .handler(archives::add);
+        server = new CallbackServer(vertx, handler);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        vertx.close();
+    }
+
+    @Test
+    public void acceptsRecordedCallbacks() throws Exception {
+        assertEquals(200, server.post(payload("archive-started.json")));
+        assertEquals(200, server.postChunked(payload("archive-available.json")));
+
+        awaitCount(archives, 2);
+        assertEquals(2, archives.size());
+        assertEquals(Archive.Status.STARTED, archives.get(0).getStatus());
+        assertEquals(Archive.Status.AVAILABLE, archives.get(1).getStatus());
+        assertEquals("b40ef09b-3811-4726-b508-e41a0f96c68f", archives.get(1).getId());
+        assertEquals(18023312, archives.get(1).getSize());
+    }
+
+    @Test
+    public void dropsRepeatedCallbacks() throws Exception {
+        assertEquals(200, server.post(payload("archive-started.json")));
+        assertEquals(200, server.post(payload("archive-started.json")));
+        assertEquals(200, server.post(payload("archive-available.json")));
+
+        awaitCount(archives, 2);
+        Thread.sleep(50);
+        assertEquals(2, archives.size());
+        assertEquals(Archive.Status.STARTED, archives.get(0).getStatus());
+        assertEquals(Archive.Status.AVAILABLE, archives.get(1).getStatus());
+    }
+
+    @Test
+    public void rejectsInvalidCallbacks() throws Exception {
+        assertEquals(400, server.post("not json"));
+        assertEquals(400, server.post("{\"id\":\"b40ef09b\"}"));
+        assertEquals(400, server.post(payload("archive-started.json").replace("123456", "654321")));
+        assertEquals(405, server.send("GET", "", false));
+        assertEquals(0, archives.size());
+    }
+
+    @Test
+    public void rejectsCallbacksLargerThanTheLimit() throws Exception {
+        String large = payload("archive-started.json").replace("The archive name you supplied",
+                new String(new char[5000]).replace('\0', 'n'));
+        assertEquals(413, server.post(large));
+        assertEquals(413, server.postChunked(large));
+        assertEquals(0, archives.size());
+    }
+}
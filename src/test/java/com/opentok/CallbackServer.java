@@ -0,0 +1,113 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP server running a callback handler, for tests to POST recorded callbacks to.
+ */
+class CallbackServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final HttpClient client;
+
+    CallbackServer(Vertx vertx, Handler<HttpServerRequest> handler) throws Exception {
+        CompletableFuture<HttpServer> listening = new CompletableFuture<>();
+        vertx.createHttpServer().requestHandler(handler).listen(0, "localhost", result -> {
+            if (result.succeeded()) {
+                listening.complete(result.result());
+            } else {
+                listening.completeExceptionally(result.cause());
+            }
+        });
+        this.server = listening.get(10, TimeUnit.SECONDS);
+        this.client = vertx.createHttpClient();
+    }
+
+    /**
+     * Reads a recorded callback body.
+     */
+    static String payload(String name) throws IOException {
+        try (InputStream in = CallbackServer.class.getResourceAsStream("callbacks/" + name)) {
+            if (in == null) {
+                throw new IOException("No recorded callback named " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Waits for the events of callbacks to be handled: they are handled once the response was sent.
+     */
+    static void awaitCount(List<?> handled, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (handled.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * POSTs a callback and returns the status of the response.
+     */
+    int post(String body) throws Exception {
+        return send("POST", body, false);
+    }
+
+    /**
+     * POSTs a callback without a Content-Length, and returns the status of the response.
+     */
+    int postChunked(String body) throws Exception {
+        return send("POST", body, true);
+    }
+
+    int send(String method, String body, boolean chunked) throws Exception {
+        CompletableFuture<Integer> status = new CompletableFuture<>();
+        HttpClientRequest request = client.request(HttpMethod.valueOf(method),
+                server.actualPort(), "localhost", "/callbacks", response -> {
+                    response.exceptionHandler(status::completeExceptionally);
+                    response.endHandler(v -> status.complete(response.statusCode()));
+                });
+        request.exceptionHandler(status::completeExceptionally);
+        request.putHeader("Content-Type", "application/json");
+        if (chunked) {
+            request.setChunked(true);
+            request.write(body.substring(0, body.length() / 2));
+            request.end(body.substring(body.length() / 2));
+        } else {
+            request.end(body);
+        }
+        return status.get(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.close();
+    }
+}
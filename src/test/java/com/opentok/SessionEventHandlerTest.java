@@ -0,0 +1,120 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.opentok.CallbackServer.awaitCount;
+import static com.opentok.CallbackServer.payload;
+import static org.junit.Assert.assertEquals;
+
+public class SessionEventHandlerTest {
+
+    private static final String SESSION_ID = "2_MX4xMzExMjU3MX5-MTQ3MDI1NzY3OTkxOH45QXRr";
+    private static final String CONNECTION_ID = "c053fcc8-c681-41d5-8ec2-7a9e1434a21e";
+
+    private Vertx vertx;
+    private List<SessionEvent> events;
+    private SessionEventHandler handler;
+    private CallbackServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        events = new CopyOnWriteArrayList<>();
+        handler = new SessionEventHandler.Builder(vertx, 123456)
+                .maxBodySize(4096)
+                .build()
+                .handler(events::add);
+        server = new CallbackServer(vertx, handler);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        handler.getPresence().close();
+        vertx.close();
+    }
+
+    @Test
+    public void acceptsRecordedCallbacks() throws Exception {
+        assertEquals(200, server.post(payload("connection-created.json")));
+        assertEquals(200, server.postChunked(payload("stream-created.json")));
+
+        awaitCount(events, 2);
+        assertEquals(2, events.size());
+        SessionEvent connection = events.get(0);
+        assertEquals(SessionEvent.Type.CONNECTION_CREATED, connection.getType());
+        assertEquals(SESSION_ID, connection.getSessionId());
+        assertEquals(CONNECTION_ID, connection.getConnectionId());
+        assertEquals("TOKENDATA", connection.getConnectionData());
+        SessionEvent stream = events.get(1);
+        assertEquals(SessionEvent.Type.STREAM_CREATED, stream.getType());
+        assertEquals("63245362-e00e-4834-8371-9397deb3e452", stream.getStreamId());
+
+        SessionPresence presence = handler.getPresence();
+        assertEquals(1, presence.getConnectionCount(SESSION_ID));
+        assertEquals(1, presence.getStreamCount(SESSION_ID));
+    }
+
+    @Test
+    public void countsARepeatedCallbackOnce() throws Exception {
+        assertEquals(200, server.post(payload("connection-created.json")));
+        assertEquals(200, server.post(payload("connection-created.json")));
+        awaitCount(events, 2);
+        assertEquals(1, handler.getPresence().getConnectionCount(SESSION_ID));
+
+        assertEquals(200, server.post(payload("connection-destroyed.json")));
+        assertEquals(200, server.post(payload("connection-destroyed.json")));
+        awaitCount(events, 4);
+        assertEquals(0, handler.getPresence().getConnectionCount(SESSION_ID));
+        assertEquals(Collections.emptySet(), handler.getPresence().getSessionIds());
+    }
+
+    @Test
+    public void ignoresCreatedCallbacksReceivedAfterTheirDestroyedCallbacks() throws Exception {
+        assertEquals(200, server.post(payload("stream-destroyed.json")));
+        assertEquals(200, server.post(payload("connection-destroyed.json")));
+        assertEquals(200, server.post(payload("connection-created.json")));
+        assertEquals(200, server.post(payload("stream-created.json")));
+        awaitCount(events, 4);
+
+        SessionPresence presence = handler.getPresence();
+        assertEquals(0, presence.getConnectionCount(SESSION_ID));
+        assertEquals(0, presence.getStreamCount(SESSION_ID));
+        assertEquals(Collections.emptySet(), presence.getSessionIds());
+    }
+
+    @Test
+    public void rejectsInvalidCallbacks() throws Exception {
+        assertEquals(400, server.post("not json"));
+        assertEquals(400, server.post("[1]"));
+        assertEquals(400, server.post(payload("connection-created.json").replace("123456", "654321")));
+        assertEquals(400, server.post(payload("connection-created.json").replace("connectionCreated", "archive")));
+        assertEquals(400, server.post(payload("connection-created.json")
+                .replace("\"id\": \"" + CONNECTION_ID + "\",", "")));
+        assertEquals(405, server.send("GET", "", false));
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    public void rejectsCallbacksLargerThanTheLimit() throws Exception {
+        String large = payload("connection-created.json").replace("TOKENDATA",
+                new String(new char[5000]).replace('\0', 'd'));
+        assertEquals(413, server.post(large));
+        assertEquals(413, server.postChunked(large));
+        assertEquals(0, events.size());
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok;
+
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionPresenceTest {
+
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    private static SessionEvent event(SessionEvent.Type type, String sessionId, String connectionId,
+                                      String streamId) {
+        return new SessionEvent(sessionId, "123456", type, System.currentTimeMillis(), null, connectionId, 0, null,
+                streamId, 0, null, null);
+    }
+
+    private static SessionEvent connection(SessionEvent.Type type, String sessionId, String connectionId) {
+        return event(type, sessionId, connectionId, null);
+    }
+
+    private static SessionEvent stream(SessionEvent.Type type, String sessionId, String streamId) {
+        return event(type, sessionId, "c", streamId);
+    }
+
+    @Test
+    public void countsConnectionsAndStreams() {
+        SessionPresence presence = new SessionPresence(vertx);
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c1"));
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c2"));
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c2"));
+        presence.update(stream(SessionEvent.Type.STREAM_CREATED, "s1", "x1"));
+        assertEquals(2, presence.getConnectionCount("s1"));
+        assertEquals(1, presence.getStreamCount("s1"));
+
+        presence.update(connection(SessionEvent.Type.CONNECTION_DESTROYED, "s1", "c1"));
+        presence.update(connection(SessionEvent.Type.CONNECTION_DESTROYED, "s1", "c2"));
+        presence.update(stream(SessionEvent.Type.STREAM_DESTROYED, "s1", "x1"));
+        assertEquals(0, presence.getConnectionCount("s1"));
+        assertEquals(Collections.emptySet(), presence.getSessionIds());
+        presence.close();
+    }
+
+    @Test
+    public void ignoresCreatedEventsReceivedAfterTheirDestroyedEvents() {
+        SessionPresence presence = new SessionPresence(vertx);
+        presence.update(connection(SessionEvent.Type.CONNECTION_DESTROYED, "s1", "c1"));
+        presence.update(stream(SessionEvent.Type.STREAM_DESTROYED, "s1", "x1"));
+        assertEquals(Collections.emptySet(), presence.getSessionIds());
+
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c1"));
+        presence.update(stream(SessionEvent.Type.STREAM_CREATED, "s1", "x1"));
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c2"));
+        assertEquals(1, presence.getConnectionCount("s1"));
+        assertEquals(0, presence.getStreamCount("s1"));
+        assertEquals(Collections.singleton("c2"), presence.getConnectionIds("s1"));
+        presence.close();
+    }
+
+    @Test
+    public void forgetsTombstonesAfterTheirTtl() throws Exception {
+        SessionPresence presence = new SessionPresence(vertx, 50);
+        presence.update(connection(SessionEvent.Type.CONNECTION_DESTROYED, "s1", "c1"));
+        Thread.sleep(300);
+
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c1"));
+        assertEquals(1, presence.getConnectionCount("s1"));
+        presence.close();
+    }
+
+    @Test
+    public void returnsSnapshotsOfTheConnectionIds() {
+        SessionPresence presence = new SessionPresence(vertx);
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c1"));
+        Set<String> ids = presence.getConnectionIds("s1");
+        presence.update(connection(SessionEvent.Type.CONNECTION_DESTROYED, "s1", "c1"));
+        presence.update(connection(SessionEvent.Type.CONNECTION_CREATED, "s1", "c2"));
+        assertEquals(Collections.singleton("c1"), ids);
+        assertTrue(presence.getConnectionIds("s1").contains("c2"));
+        presence.close();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.Archive;
+import com.opentok.ArchiveList;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArchiveCacheTest {
+
+    private static Archive archive(String id, String sessionId, String status) throws IOException {
+        return JsonCodec.ARCHIVE_READER.readValue("{\"id\":\"" + id + "\",\"sessionId\":\"" + sessionId +
+                "\",\"status\":\"" + status + "\"}");
+    }
+
+    private static ArchiveList list(Archive... archives) {
+        return new ArchiveList(Arrays.asList(archives), archives.length);
+    }
+
+    private static <T> Consumer<Handler<AsyncResult<T>>> loader(T value, AtomicInteger loads) {
+        return handler -> {
+            loads.incrementAndGet();
+            handler.handle(Future.succeededFuture(value));
+        };
+    }
+
+    private static Archive getArchive(ArchiveCache cache, String archiveId, Archive loaded, AtomicInteger loads) {
+        AtomicReference<Archive> value = new AtomicReference<>();
+        cache.getArchive(archiveId, loader(loaded, loads), result -> value.set(result.result()));
+        return value.get();
+    }
+
+    private static ArchiveList getArchives(ArchiveCache cache, String sessionId, ArchiveList loaded,
+                                           AtomicInteger loads) {
+        AtomicReference<ArchiveList> value = new AtomicReference<>();
+        cache.getArchives(sessionId, loader(loaded, loads), result -> value.set(result.result()));
+        return value.get();
+    }
+
+    private static List<String> ids(ArchiveList archives) {
+        List<String> ids = new ArrayList<>();
+        for (Archive archive : archives) {
+            ids.add(archive.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void servesFreshEntriesWithoutLoading() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new ArchiveCachePolicy.Builder().build());
+        AtomicInteger loads = new AtomicInteger();
+        Archive archive = archive("a1", "s1", "uploaded");
+        getArchive(cache, "a1", archive, loads);
+        assertEquals("a1", getArchive(cache, "a1", archive, loads).getId());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void deletingAnArchiveDropsTheListsContainingIt() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new ArchiveCachePolicy.Builder().build());
+        AtomicInteger loads = new AtomicInteger();
+        ArchiveList archives = list(archive("a1", "s1", "uploaded"), archive("a2", "s1", "uploaded"));
+        getArchives(cache, "s1", archives, loads);
+
+        // the archive itself was never cached
+        cache.invalidateArchive("a2");
+
+        ArchiveList reloaded = list(archive("a1", "s1", "uploaded"));
+        assertEquals(Arrays.asList("a1"), ids(getArchives(cache, "s1", reloaded, loads)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidatingOtherKeysDoesNotDiscardRunningLoads() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new ArchiveCachePolicy.Builder().build());
+        AtomicReference<Handler<AsyncResult<Archive>>> pending = new AtomicReference<>();
+        cache.getArchive("a1", pending::set, result -> { });
+
+        cache.invalidateArchive("a9");
+        cache.invalidateSession("s9");
+        pending.get().handle(Future.succeededFuture(archive("a1", "s1", "uploaded")));
+
+        AtomicInteger loads = new AtomicInteger();
+        getArchive(cache, "a1", archive("a1", "s1", "uploaded"), loads);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void discardsLoadsOfInvalidatedKeys() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new ArchiveCachePolicy.Builder().build());
+        AtomicReference<Handler<AsyncResult<Archive>>> pending = new AtomicReference<>();
+        cache.getArchive("a1", pending::set, result -> { });
+
+        cache.invalidateArchive("a1");
+        pending.get().handle(Future.succeededFuture(archive("a1", "s1", "started")));
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(Archive.Status.UPLOADED,
+                getArchive(cache, "a1", archive("a1", "s1", "uploaded"), loads).getStatus());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void reloadsAStaleEntryAgainAfterADiscardedReload() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new ArchiveCachePolicy.Builder()
+                .ttl(0, Archive.Status.UPLOADED)
+                .staleWhileRevalidate(60000)
+                .build());
+        AtomicInteger loads = new AtomicInteger();
+        getArchives(cache, "s1", list(archive("a1", "s1", "uploaded")), loads);
+
+        // the background reload reads an archive that is deleted before the reload completes
+        AtomicReference<Handler<AsyncResult<ArchiveList>>> pending = new AtomicReference<>();
+        cache.getArchives("s1", pending::set, result -> { });
+        cache.invalidateArchive("a2");
+        pending.get().handle(Future.succeededFuture(list(archive("a1", "s1", "uploaded"),
+                archive("a2", "s1", "uploaded"))));
+
+        assertEquals(Arrays.asList("a1"), ids(getArchives(cache, "s1", list(archive("a1", "s1", "uploaded")),
+                loads)));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = 1000;
+
+    private static CircuitBreaker breaker(long openDuration) {
+        return new CircuitBreaker(ApiEndpoint.SESSION_CREATE, new CircuitBreakerPolicy.Builder()
+                .window(4, 4)
+                .openDuration(openDuration)
+                .halfOpenTrials(1)
+                .build(), null);
+    }
+
+    private static void openWithFailures(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(breaker.tryAcquire(), true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void opensOnFailuresAndClosesAfterSuccessfulTrials() throws Exception {
+        CircuitBreaker breaker = breaker(1);
+        openWithFailures(breaker);
+        Thread.sleep(5);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertNotNull(trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull("Only one trial is let through", breaker.tryAcquire());
+        breaker.onResult(trial, false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void rejectsRequestsWhileOpen() {
+        CircuitBreaker breaker = breaker(60000);
+        openWithFailures(breaker);
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void ignoresLateResultsOfRequestsSentBeforeItOpened() throws Exception {
+        CircuitBreaker breaker = breaker(1);
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        openWithFailures(breaker);
+        Thread.sleep(5);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(stale, false, FAST);
+        assertEquals("A stale success must not close the breaker", CircuitBreaker.State.HALF_OPEN,
+                breaker.getState());
+        breaker.onResult(stale, true, FAST);
+        assertEquals("A stale failure must not reopen the breaker", CircuitBreaker.State.HALF_OPEN,
+                breaker.getState());
+
+        breaker.onResult(trial, false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void ignoresLateResultsOfEarlierTrials() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(ApiEndpoint.SESSION_CREATE, new CircuitBreakerPolicy.Builder()
+                .window(4, 4)
+                .openDuration(1)
+                .halfOpenTrials(2)
+                .build(), null);
+        openWithFailures(breaker);
+        Thread.sleep(5);
+        CircuitBreaker.Permit failing = breaker.tryAcquire();
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        breaker.onResult(failing, true, FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(5);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(late, false, FAST);
+        breaker.onResult(trial, false, FAST);
+        assertEquals("A trial of an earlier half-open period must not count", CircuitBreaker.State.HALF_OPEN,
+                breaker.getState());
+        breaker.onResult(breaker.tryAcquire(), false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
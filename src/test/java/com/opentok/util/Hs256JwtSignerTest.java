@@ -0,0 +1,85 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import com.opentok.exception.OpenTokException;
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Hs256JwtSignerTest {
+
+    private static final int API_KEY = 123456;
+    private static final String API_SECRET = "1234567890abcdef1234567890abcdef1234567890";
+
+    @Test
+    public void signsTheSameTokenAsJose4j() throws Exception {
+        Hs256JwtSigner signer = new Hs256JwtSigner(API_KEY, API_SECRET);
+        long[][] times = {{1500000000L, 1500000180L}, {0L, 1L}, {1L, 9999999999L}, {1234567L, 12345678L}};
+        for (long[] time : times) {
+            String reference = TokenGenerator.generateToken(API_KEY, API_SECRET, time[0], time[1]);
+            JwtClaims referenceClaims = JwtClaims.parse(verifiedPayload(reference));
+            byte[] jti = Base64Url.decode(referenceClaims.getJwtId());
+
+            String token = signer.sign(time[0], time[1], jti);
+
+            assertEquals(header(reference), header(token));
+            JwtClaims claims = JwtClaims.parse(verifiedPayload(token));
+            assertEquals(referenceClaims.getClaimsMap(), claims.getClaimsMap());
+            assertEquals(Integer.toString(API_KEY), claims.getIssuer());
+            assertEquals(TokenGenerator.PROJECT_ISSUER_TYPE, claims.getStringClaimValue(TokenGenerator.ISSUER_TYPE));
+            assertEquals(time[0], claims.getIssuedAt().getValue());
+            assertEquals(time[1], claims.getExpirationTime().getValue());
+            assertEquals(reference, token);
+        }
+    }
+
+    @Test
+    public void signsWithAFreshJwtIdEachTime() throws Exception {
+        Hs256JwtSigner signer = new Hs256JwtSigner(API_KEY, API_SECRET);
+        String first = signer.sign(1500000000L, 1500000180L);
+        String second = signer.sign(1500000000L, 1500000180L);
+        assertNotEquals(JwtClaims.parse(verifiedPayload(first)).getJwtId(),
+                JwtClaims.parse(verifiedPayload(second)).getJwtId());
+    }
+
+    @Test
+    public void rejectsKeysShorterThanTheHash() throws Exception {
+        Hs256JwtSigner signer = new Hs256JwtSigner(API_KEY, "too short");
+        try {
+            signer.sign(1500000000L, 1500000180L);
+            fail("A short key must be rejected");
+        } catch (OpenTokException e) {
+            assertTrue(e.getMessage().contains("72 bits"));
+        }
+    }
+
+    private static String header(String token) {
+        return new String(Base64Url.decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+
+    private static String verifiedPayload(String token) throws JoseException {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCompactSerialization(token);
+        jws.setKey(new SecretKeySpec(API_SECRET.getBytes(StandardCharsets.UTF_8), AlgorithmIdentifiers.HMAC_SHA256));
+        assertTrue("The HS256 signature must verify", jws.verifySignature());
+        assertEquals(AlgorithmIdentifiers.HMAC_SHA256, jws.getAlgorithmHeaderValue());
+        return jws.getPayload();
+    }
+}
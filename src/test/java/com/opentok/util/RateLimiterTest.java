@@ -0,0 +1,85 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimiterTest {
+
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    private RateLimiter limiter(int maxQueueSize) {
+        return new RateLimiter(vertx, new RateLimit.Builder(0.01).burst(1).maxQueueSize(maxQueueSize).build());
+    }
+
+    @Test
+    public void grantsTheBurstThenQueuesAndRejects() {
+        RateLimiter limiter = limiter(1);
+        List<Boolean> outcomes = new CopyOnWriteArrayList<>();
+        limiter.acquire(() -> false, outcomes::add);
+        limiter.acquire(() -> false, outcomes::add);
+        limiter.acquire(() -> false, outcomes::add);
+        assertEquals(Arrays.asList(true, false), outcomes);
+        assertEquals(1, limiter.getQueueSize());
+    }
+
+    @Test
+    public void cancelledWaitersDoNotHoldPlacesInTheQueue() {
+        RateLimiter limiter = limiter(1);
+        List<Boolean> outcomes = new CopyOnWriteArrayList<>();
+        limiter.acquire(() -> false, outcomes::add);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        limiter.acquire(cancelled::get, outcomes::add);
+        cancelled.set(true);
+
+        limiter.acquire(() -> false, outcomes::add);
+        assertEquals(Arrays.asList(true), outcomes);
+        assertEquals(1, limiter.getQueueSize());
+    }
+
+    @Test
+    public void releasedTokensAreTakenAgain() {
+        RateLimiter limiter = limiter(1);
+        List<Boolean> outcomes = new CopyOnWriteArrayList<>();
+        limiter.acquire(() -> false, outcomes::add);
+        limiter.release();
+        limiter.acquire(() -> false, outcomes::add);
+        assertEquals(Arrays.asList(true, true), outcomes);
+    }
+
+    @Test
+    public void releasedTokensGoToTheQueue() {
+        RateLimiter limiter = limiter(1);
+        List<Boolean> outcomes = new CopyOnWriteArrayList<>();
+        limiter.acquire(() -> false, outcomes::add);
+        limiter.acquire(() -> false, outcomes::add);
+        limiter.release();
+        assertEquals(Arrays.asList(true, true), outcomes);
+        assertEquals(0, limiter.getQueueSize());
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * OpenTok Java SDK
+ * Copyright (C) 2018 TokBox, Inc.
+ * http://www.tokbox.com
+ *
+ * Licensed under The MIT License (MIT). See LICENSE file for more information.
+ */
+package com.opentok.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void sharesTheResultOfTheCallInFlight() {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicReference<Handler<AsyncResult<String>>> pending = new AtomicReference<>();
+        List<String> results = new ArrayList<>();
+        assertFalse(flight.execute("k", r -> results.add(r.result()), pending::set));
+        assertTrue(flight.execute("k", r -> results.add(r.result()), h -> fail("The call must be joined")));
+        pending.get().handle(Future.succeededFuture("v"));
+        assertEquals(Arrays.asList("v", "v"), results);
+
+        assertFalse(flight.execute("k", r -> results.add(r.result()), h -> h.handle(Future.succeededFuture("w"))));
+        assertEquals(Arrays.asList("v", "v", "w"), results);
+    }
+
+    @Test
+    public void forgetsCallsThatThrow() {
+        SingleFlight<String> flight = new SingleFlight<>();
+        List<AsyncResult<String>> joined = new ArrayList<>();
+        IllegalStateException thrown = new IllegalStateException("request building failed");
+        try {
+            flight.execute("k", r -> fail("The caller gets the exception"), h -> {
+                // a call joins while the first one is still being started
+                flight.execute("k", joined::add, other -> fail("The call must be joined"));
+                throw thrown;
+            });
+            fail("The exception must be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals(thrown, e);
+        }
+        assertEquals(1, joined.size());
+        assertEquals(thrown, joined.get(0).cause());
+
+        List<String> results = new ArrayList<>();
+        assertFalse(flight.execute("k", r -> results.add(r.result()), h -> h.handle(Future.succeededFuture("v"))));
+        assertEquals(Arrays.asList("v"), results);
+    }
+}